@@ -0,0 +1,246 @@
+package io.github.qwzhang01.sql.tool.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Two-level cache of per-statement analysis results.
+ * The shared level (L1) is keyed by {@link SqlFingerprint}, so statements differing only
+ * in whitespace, keyword case or comments share one entry. In front of it every thread
+ * keeps a tiny direct-mapped level (L0) keyed by the identity of the SQL string: frameworks
+ * such as MyBatis pass the same {@code String} instance for a static statement on every
+ * call, and an identity hit neither scans or hashes the text nor takes the shared lock.
+ *
+ * <p>The shared level can admit new statements by frequency (see {@link LruCache}), so
+ * that ad-hoc statements running once do not evict hot ones.</p>
+ *
+ * <p>Concurrent misses on the same fingerprint are coalesced (see {@link SingleFlight}),
+ * so a cold cache computes every statement once, however many threads ask for it.</p>
+ *
+ * <p>Identity comparison is exact, since strings are immutable; an L0 slot holds a strong
+ * reference to its string until the slot is reused. {@link #clear()} invalidates the L0
+ * entries of all threads.</p>
+ *
+ * @param <V> analysis result type, instances are shared and must be immutable
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class AnalysisCache<V> {
+
+    /**
+     * Default number of statements kept in the shared level
+     */
+    public static final int DEFAULT_CAPACITY = 2048;
+
+    /**
+     * Number of slots of the per-thread level, a power of two
+     */
+    public static final int LOCAL_SLOTS = 16;
+
+    /**
+     * Shared results keyed by statement fingerprint
+     */
+    private final LruCache<String, V> shared;
+
+    /**
+     * Computes the result of a statement on a miss of both levels
+     */
+    private final Function<String, V> loader;
+
+    /**
+     * Coalesces the computations of concurrent misses
+     */
+    private final SingleFlight<String, V> inFlight = new SingleFlight<>();
+
+    /**
+     * Per-thread slots indexed by the identity hash code of the SQL string
+     */
+    private final ThreadLocal<LocalEntry<V>[]> local;
+
+    /**
+     * Incremented by {@link #clear()}; local entries of an older generation are stale
+     */
+    private volatile int generation;
+
+    private final LongAdder localHits = new LongAdder();
+
+    private final LongAdder sharedHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs an analysis cache
+     *
+     * @param capacity maximum number of statements in the shared level
+     * @param loader   computes the result of a statement, may throw for invalid SQL
+     */
+    public AnalysisCache(int capacity, Function<String, V> loader) {
+        this(capacity, false, loader);
+    }
+
+    /**
+     * Constructs an analysis cache
+     *
+     * @param capacity  maximum number of statements in the shared level
+     * @param admission true to admit statements into the full shared level by frequency
+     * @param loader    computes the result of a statement, may throw for invalid SQL
+     */
+    public AnalysisCache(int capacity, boolean admission, Function<String, V> loader) {
+        this(new LruCache<>(capacity, admission), loader);
+    }
+
+    /**
+     * Constructs an analysis cache on a configured shared level, e.g. one limited by
+     * estimated size in bytes or backed by a soft tier
+     *
+     * @param shared shared level keyed by statement fingerprint
+     * @param loader computes the result of a statement, may throw for invalid SQL
+     */
+    @SuppressWarnings("unchecked")
+    public AnalysisCache(LruCache<String, V> shared, Function<String, V> loader) {
+        this.shared = shared;
+        this.loader = loader;
+        this.local = ThreadLocal.withInitial(() -> (LocalEntry<V>[]) new LocalEntry<?>[LOCAL_SLOTS]);
+    }
+
+    /**
+     * Gets the result for a statement, computing and caching it on a miss.
+     * Exceptions of the loader are propagated to all threads waiting for the same
+     * statement, and nothing is cached.
+     *
+     * @param sql the SQL statement
+     * @return the cached or freshly computed result
+     */
+    public V get(String sql) {
+        LocalEntry<V>[] slots = local.get();
+        int slot = System.identityHashCode(sql) & (LOCAL_SLOTS - 1);
+        int current = generation;
+        LocalEntry<V> entry = slots[slot];
+        if (entry != null && entry.sql == sql && entry.generation == current) {
+            localHits.increment();
+            return entry.value;
+        }
+
+        String fingerprint = SqlFingerprint.of(sql);
+        V value = shared.get(fingerprint);
+        if (value != null) {
+            sharedHits.increment();
+        } else {
+            value = inFlight.execute(fingerprint, key -> load(key, sql));
+            if (value == null) {
+                return null;
+            }
+        }
+        slots[slot] = new LocalEntry<>(sql, current, value);
+        return value;
+    }
+
+    private V load(String fingerprint, String sql) {
+        misses.increment();
+        V value = loader.apply(sql);
+        if (value != null) {
+            shared.put(fingerprint, value);
+        }
+        return value;
+    }
+
+    /**
+     * Sets the maximum time a thread waits for the computation of a statement started by
+     * another thread
+     *
+     * @param timeout maximum time to wait, 0 for no limit
+     * @param unit    unit of the timeout
+     */
+    public void setWaitTimeout(long timeout, TimeUnit unit) {
+        inFlight.setWaitTimeout(timeout, unit);
+    }
+
+    public long getWaitTimeout(TimeUnit unit) {
+        return inFlight.getWaitTimeout(unit);
+    }
+
+    /**
+     * Removes all entries from the shared level and invalidates the per-thread levels
+     */
+    public void clear() {
+        generation++;
+        shared.clear();
+    }
+
+    public int size() {
+        return shared.size();
+    }
+
+    public int getCapacity() {
+        return shared.getCapacity();
+    }
+
+    /**
+     * Gets the number of computed results not admitted into the shared level
+     *
+     * @return rejections by frequency admission since construction
+     */
+    public long getRejections() {
+        return shared.getRejections();
+    }
+
+    /**
+     * Gets the shared level, e.g. to read its weight and eviction counters
+     *
+     * @return the shared level
+     */
+    public LruCache<String, V> getShared() {
+        return shared;
+    }
+
+    /**
+     * Gets the number of lookups answered by a per-thread level
+     *
+     * @return identity hits since construction
+     */
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    /**
+     * Gets the number of lookups answered by the shared level
+     *
+     * @return fingerprint hits since construction
+     */
+    public long getSharedHits() {
+        return sharedHits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to compute the result
+     *
+     * @return misses since construction
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the share of lookups answered without computing the result
+     *
+     * @return hit ratio between 0 and 1, 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long hits = localHits.sum() + sharedHits.sum() + inFlight.getCoalesced();
+        long lookups = hits + misses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Gets the number of lookups that waited for the computation of another thread
+     *
+     * @return coalesced misses since construction
+     */
+    public long getCoalesced() {
+        return inFlight.getCoalesced();
+    }
+
+    private record LocalEntry<V>(String sql, int generation, V value) {
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.qwzhang01.sql.tool.cache;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch estimating how often keys were seen recently, as used by TinyLFU
+ * admission. Every key maps to four 4-bit counters spread over a {@code long[]} table;
+ * its frequency is the minimum of those counters, so estimates may be too high but never
+ * too low. After a sample of ten increments per cache entry all counters are halved,
+ * which ages out keys that were popular long ago.
+ *
+ * <p>Not thread-safe; {@link LruCache} uses it under its own lock.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class FrequencySketch {
+
+    /**
+     * Largest value of a 4-bit counter
+     */
+    public static final int MAX_FREQUENCY = 15;
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * Sixteen 4-bit counters per element
+     */
+    private final long[] table;
+
+    /**
+     * Number of counter increments after which all counters are halved
+     */
+    private final int sampleSize;
+
+    /**
+     * Counter increments since the last reset
+     */
+    private int size;
+
+    /**
+     * Constructs a sketch for a cache of the given capacity
+     *
+     * @param capacity maximum number of entries of the cache using the sketch
+     */
+    public FrequencySketch(int capacity) {
+        int maximum = Math.min(Math.max(capacity, 16), 1 << 22);
+        this.table = new long[Integer.highestOneBit(maximum - 1) << 1];
+        this.sampleSize = 10 * maximum;
+    }
+
+    /**
+     * Estimates how often a key was seen since it last aged out
+     *
+     * @param key the key
+     * @return the estimated frequency, at most {@link #MAX_FREQUENCY}
+     */
+    public int frequency(Object key) {
+        int hash = spread(key);
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, (int) (table[indexOf(hash, i)] >>> offsetOf(hash, i)) & 0xf);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an occurrence of a key, halving all counters when the sample is full
+     *
+     * @param key the key
+     */
+    public void increment(Object key) {
+        int hash = spread(key);
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            int offset = offsetOf(hash, i);
+            if (((table[index] >>> offset) & 0xf) < MAX_FREQUENCY) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Forgets all recorded occurrences
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & (table.length - 1);
+    }
+
+    /**
+     * Bit offset of the i-th counter of a key within its table element
+     */
+    private static int offsetOf(int hash, int i) {
+        return ((hash >>> (i << 3)) & 0xf) << 2;
+    }
+
+    private static int spread(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= h >>> 17;
+        h *= 0xed5ad4bb;
+        h ^= h >>> 11;
+        return h;
+    }
+}
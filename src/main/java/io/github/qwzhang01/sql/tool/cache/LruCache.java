@@ -0,0 +1,478 @@
+package io.github.qwzhang01.sql.tool.cache;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Small thread-safe least-recently-used cache with a bounded entry capacity.
+ * Used to keep compiled results for frequently seen SQL statements.
+ *
+ * <p>With frequency admission (TinyLFU) enabled, lookups are recorded in a
+ * {@link FrequencySketch}, and a new key only enters a full cache if it was looked up
+ * more often than the least recently used entry it would evict. A burst of statements
+ * that run once then cannot flush frequently used entries.</p>
+ *
+ * <p>With a weigher, entries are additionally evicted while their total weight, e.g. the
+ * estimated size in bytes, exceeds a budget. Evicted entries can be kept in a soft tier of
+ * {@link SoftReference}s, which the garbage collector clears under memory pressure; a
+ * lookup that finds its value there moves it back into the cache.</p>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class LruCache<K, V> {
+
+    /**
+     * Maximum number of entries kept in the cache, guarded by the map monitor
+     */
+    private int capacity;
+
+    /**
+     * Access-ordered backing map, guarded by its own monitor
+     */
+    private final LinkedHashMap<K, V> map;
+
+    /**
+     * Lookup frequencies for admission, null if every new key is admitted
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Computes the weight of an entry, null to weigh every entry 1
+     */
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+
+    /**
+     * Maximum total weight of the entries, guarded by the map monitor
+     */
+    private long maxWeight;
+
+    /**
+     * Evicted entries that stay reachable until the garbage collector needs the memory,
+     * null if the soft tier is disabled
+     */
+    private final LinkedHashMap<K, SoftValue<K, V>> soft;
+
+    /**
+     * Soft tier references cleared by the garbage collector
+     */
+    private final ReferenceQueue<V> collectedQueue = new ReferenceQueue<>();
+
+    /**
+     * Total weight of the entries
+     */
+    private long weight;
+
+    /**
+     * Number of new keys not admitted because the eviction victim was used more often
+     */
+    private long rejections;
+
+    /**
+     * Number of entries dropped to stay within the capacity and weight limits
+     */
+    private long evictions;
+
+    /**
+     * Number of soft tier entries cleared by the garbage collector
+     */
+    private long collected;
+
+    /**
+     * Number of lookups answered by the soft tier
+     */
+    private long softHits;
+
+    /**
+     * Constructs a cache holding at most the given number of entries
+     *
+     * @param capacity maximum number of entries, must be positive
+     */
+    public LruCache(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Constructs a cache holding at most the given number of entries
+     *
+     * @param capacity  maximum number of entries, must be positive
+     * @param admission true to admit new keys into a full cache by lookup frequency
+     */
+    public LruCache(int capacity, boolean admission) {
+        this(capacity, admission, Long.MAX_VALUE, null, false);
+    }
+
+    /**
+     * Constructs a cache limited by entry count and total weight
+     *
+     * @param capacity  maximum number of entries, must be positive
+     * @param admission true to admit new keys into a full cache by lookup frequency
+     * @param maxWeight maximum total weight of the entries, must be positive
+     * @param weigher   computes the weight of an entry, null to weigh every entry 1
+     * @param softTier  true to keep evicted entries softly reachable
+     */
+    public LruCache(int capacity, boolean admission, long maxWeight,
+                    ToIntBiFunction<? super K, ? super V> weigher, boolean softTier) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache weight must be positive: " + maxWeight);
+        }
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+        this.sketch = admission ? new FrequencySketch(capacity) : null;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.soft = softTier ? new LinkedHashMap<>() : null;
+    }
+
+    /**
+     * Gets the cached value for a key
+     *
+     * @param key the cache key
+     * @return the cached value, or null if absent
+     */
+    public V get(K key) {
+        synchronized (map) {
+            if (sketch != null) {
+                sketch.increment(key);
+            }
+            V value = map.get(key);
+            if (value == null && soft != null) {
+                purgeCollected();
+                SoftValue<K, V> reference = soft.remove(key);
+                value = reference != null ? reference.get() : null;
+                if (value != null) {
+                    softHits++;
+                    store(key, value);
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Stores a value, evicting least recently used entries while the cache is over its
+     * capacity or weight. With frequency admission a new key is dropped instead if the
+     * entry to evict was looked up at least as often. A value heavier than the weight
+     * budget is never stored.
+     *
+     * @param key   the cache key
+     * @param value the value to cache
+     */
+    public void put(K key, V value) {
+        synchronized (map) {
+            if (sketch != null && !map.isEmpty() && !map.containsKey(key)
+                    && (map.size() >= capacity || weight + weigh(key, value) > maxWeight)) {
+                K victim = map.keySet().iterator().next();
+                if (sketch.frequency(key) <= sketch.frequency(victim)) {
+                    rejections++;
+                    return;
+                }
+            }
+            if (soft != null) {
+                soft.remove(key);
+            }
+            store(key, value);
+        }
+    }
+
+    private void store(K key, V value) {
+        int entryWeight = weigh(key, value);
+        if (entryWeight > maxWeight) {
+            V old = map.remove(key);
+            if (old != null) {
+                weight -= weigh(key, old);
+            }
+            rejections++;
+            return;
+        }
+        V old = map.put(key, value);
+        if (old != null) {
+            weight -= weigh(key, old);
+        }
+        weight += entryWeight;
+        // the new entry is the most recently used one and fits the budget on its own
+        evictExcess();
+    }
+
+    /**
+     * Evicts least recently used entries while the cache is over its capacity or weight
+     */
+    private void evictExcess() {
+        Iterator<Map.Entry<K, V>> eldest = map.entrySet().iterator();
+        while (map.size() > capacity || weight > maxWeight) {
+            Map.Entry<K, V> entry = eldest.next();
+            eldest.remove();
+            weight -= weigh(entry.getKey(), entry.getValue());
+            demote(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Moves an evicted entry into the soft tier, or drops it
+     */
+    private void demote(K key, V value) {
+        if (soft == null) {
+            evictions++;
+            return;
+        }
+        purgeCollected();
+        soft.put(key, new SoftValue<>(key, value, collectedQueue));
+        if (soft.size() > capacity) {
+            Iterator<SoftValue<K, V>> eldest = soft.values().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes soft tier entries whose values were cleared by the garbage collector
+     */
+    private void purgeCollected() {
+        Object reference;
+        while ((reference = collectedQueue.poll()) != null) {
+            SoftValue<?, ?> value = (SoftValue<?, ?>) reference;
+            if (soft.remove(value.key, value)) {
+                collected++;
+            }
+        }
+    }
+
+    private int weigh(K key, V value) {
+        return weigher == null ? 1 : weigher.applyAsInt(key, value);
+    }
+
+    /**
+     * Gets the cached value for a key, computing and caching it on a miss.
+     * The computation runs outside the lock, so concurrent misses on the same
+     * key may compute the value more than once.
+     *
+     * @param key     the cache key
+     * @param compute function computing the value on a miss
+     * @return the cached or freshly computed value
+     */
+    public V get(K key, Function<K, V> compute) {
+        V value = get(key);
+        if (value == null) {
+            value = compute.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets the cached value for a key, computing and caching it on a miss.
+     * Concurrent misses on the same key are coalesced: one thread computes the value
+     * while the others wait for it and share the result or the failure.
+     *
+     * @param key      the cache key
+     * @param compute  function computing the value on a miss
+     * @param inFlight group coalescing the computations of concurrent misses
+     * @return the cached or freshly computed value
+     */
+    public V get(K key, Function<K, V> compute, SingleFlight<K, V> inFlight) {
+        V value = get(key);
+        if (value == null) {
+            value = inFlight.execute(key, k -> {
+                V computed = compute.apply(k);
+                if (computed != null) {
+                    put(k, computed);
+                }
+                return computed;
+            });
+        }
+        return value;
+    }
+
+    /**
+     * Removes the entry for a key
+     *
+     * @param key the cache key
+     * @return the removed value, or null if absent
+     */
+    public V remove(K key) {
+        synchronized (map) {
+            V value = map.remove(key);
+            if (value != null) {
+                weight -= weigh(key, value);
+            } else if (soft != null) {
+                SoftValue<K, V> reference = soft.remove(key);
+                value = reference != null ? reference.get() : null;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+            weight = 0;
+            if (soft != null) {
+                soft.clear();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Returns the keys from least to most recently used
+     *
+     * @return a snapshot of the keys
+     */
+    public List<K> keys() {
+        synchronized (map) {
+            return new ArrayList<>(map.keySet());
+        }
+    }
+
+    /**
+     * Changes the limits of the cache, evicting entries if it shrinks
+     *
+     * @param capacity  maximum number of entries, must be positive
+     * @param maxWeight maximum total weight of the entries, must be positive
+     */
+    public void resize(int capacity, long maxWeight) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache weight must be positive: " + maxWeight);
+        }
+        synchronized (map) {
+            this.capacity = capacity;
+            this.maxWeight = maxWeight;
+            evictExcess();
+            while (soft != null && soft.size() > capacity) {
+                Iterator<SoftValue<K, V>> eldest = soft.values().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    public int getCapacity() {
+        synchronized (map) {
+            return capacity;
+        }
+    }
+
+    /**
+     * Checks whether new keys are admitted by lookup frequency
+     *
+     * @return true if TinyLFU admission is enabled
+     */
+    public boolean isAdmission() {
+        return sketch != null;
+    }
+
+    /**
+     * Gets the number of new keys rejected by frequency admission or for exceeding the
+     * weight budget on their own
+     *
+     * @return rejected puts since construction
+     */
+    public long getRejections() {
+        synchronized (map) {
+            return rejections;
+        }
+    }
+
+    /**
+     * Gets the total weight of the entries, the number of entries if there is no weigher
+     *
+     * @return the current weight
+     */
+    public long getWeight() {
+        synchronized (map) {
+            return weight;
+        }
+    }
+
+    public long getMaxWeight() {
+        synchronized (map) {
+            return maxWeight;
+        }
+    }
+
+    /**
+     * Gets the number of entries dropped to stay within the capacity and weight limits.
+     * With a soft tier an entry counts once it is dropped from the soft tier as well.
+     *
+     * @return evictions since construction
+     */
+    public long getEvictions() {
+        synchronized (map) {
+            return evictions;
+        }
+    }
+
+    /**
+     * Gets the number of soft tier entries cleared by the garbage collector
+     *
+     * @return collected entries since construction, 0 without soft tier
+     */
+    public long getCollected() {
+        synchronized (map) {
+            if (soft != null) {
+                purgeCollected();
+            }
+            return collected;
+        }
+    }
+
+    /**
+     * Gets the number of lookups answered by the soft tier
+     *
+     * @return soft tier hits since construction, 0 without soft tier
+     */
+    public long getSoftHits() {
+        synchronized (map) {
+            return softHits;
+        }
+    }
+
+    /**
+     * Gets the number of entries in the soft tier, including entries the garbage
+     * collector cleared but that were not purged yet
+     *
+     * @return soft tier size, 0 without soft tier
+     */
+    public int getSoftSize() {
+        synchronized (map) {
+            return soft == null ? 0 : soft.size();
+        }
+    }
+
+    private static final class SoftValue<K, V> extends SoftReference<V> {
+
+        private final K key;
+
+        private SoftValue(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.qwzhang01.sql.tool.cache;
+
+import io.github.qwzhang01.sql.tool.exception.SqlIllegalException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of SQL statements known to be unparsable.
+ * Entries map a statement to a prebuilt, stackless {@link SqlIllegalException} that can
+ * be rethrown without parsing again. The lookup before a parse uses the statement text
+ * as is, so that parsable statements never pay for a fingerprint; only after a failed
+ * parse is the statement fingerprinted, so that variants differing in whitespace or
+ * comments share one entry. Entries expire after a time-to-live, so statements are
+ * re-tested eventually, e.g. after a parser upgrade.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class NegativeCache {
+
+    /**
+     * Cached errors keyed by statement fingerprint
+     */
+    private final LruCache<String, Entry> cache;
+
+    /**
+     * The same entries keyed by the statement text they were looked up with
+     */
+    private final LruCache<String, Entry> byText;
+
+    /**
+     * Time-to-live of an entry in nanoseconds
+     */
+    private final long ttlNanos;
+
+    /**
+     * Constructs a negative cache
+     *
+     * @param capacity maximum number of statements to remember
+     * @param ttl      time-to-live of an entry
+     * @param unit     unit of the time-to-live
+     */
+    public NegativeCache(int capacity, long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("Negative cache TTL must be positive: " + ttl);
+        }
+        this.cache = new LruCache<>(capacity);
+        this.byText = new LruCache<>(capacity);
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Gets the cached error for exactly this statement text, without normalizing it
+     *
+     * @param sql the statement
+     * @return the cached error, or null if the statement is not known to be bad
+     */
+    public SqlIllegalException get(String sql) {
+        Entry entry = byText.get(sql);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            byText.remove(sql);
+            String fingerprint = SqlFingerprint.of(sql);
+            if (cache.get(fingerprint) == entry) {
+                cache.remove(fingerprint);
+            }
+            return null;
+        }
+        return entry.error;
+    }
+
+    /**
+     * Gets the cached error for a statement with the same fingerprint, e.g. after
+     * {@link #get(String)} missed and the statement failed to parse. On a hit the
+     * statement text is remembered, so that {@link #get(String)} finds it next time.
+     *
+     * @param sql the statement
+     * @return the cached error, or null if no similar statement is known to be bad
+     */
+    public SqlIllegalException getSimilar(String sql) {
+        String fingerprint = SqlFingerprint.of(sql);
+        Entry entry = cache.get(fingerprint);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            cache.remove(fingerprint);
+            return null;
+        }
+        byText.put(sql, entry);
+        return entry.error;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.createdAt >= ttlNanos;
+    }
+
+    /**
+     * Remembers a statement as unparsable. A stackless copy of the error is stored.
+     *
+     * @param sql   the statement
+     * @param error the error raised while parsing the statement
+     * @return the cached stackless error
+     */
+    public SqlIllegalException put(String sql, SqlIllegalException error) {
+        SqlIllegalException cached = new SqlIllegalException("Invalid SQL, cannot parse (cached)",
+                error.getCause(), error.getSql(), true);
+        Entry entry = new Entry(cached, System.nanoTime());
+        cache.put(SqlFingerprint.of(sql), entry);
+        byText.put(sql, entry);
+        return cached;
+    }
+
+    /**
+     * Forgets all known-bad statements
+     */
+    public void clear() {
+        cache.clear();
+        byText.clear();
+    }
+
+    /**
+     * Returns the fingerprints of the statements known to be unparsable, including
+     * expired entries that were not looked up again
+     *
+     * @return a snapshot of the fingerprints from least to most recently used
+     */
+    public List<String> getFingerprints() {
+        return cache.keys();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public int getCapacity() {
+        return cache.getCapacity();
+    }
+
+    public long getTtl(TimeUnit unit) {
+        return unit.convert(ttlNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private record Entry(SqlIllegalException error, long createdAt) {
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.qwzhang01.sql.tool.cache;
+
+import io.github.qwzhang01.sql.tool.exception.ParseException;
+import io.github.qwzhang01.sql.tool.exception.InFlightTimeoutException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent computations for the same key.
+ * After a cache flush or a cold start many threads miss on the same statement at once;
+ * the first one computes the value and the others wait for it and share the result, so
+ * the statement is parsed once instead of once per thread. A failure of the computation
+ * is rethrown to every waiting thread.
+ *
+ * <p>Results are not remembered once the computation finished; callers store them in a
+ * cache, see {@link LruCache#get(Object, Function, SingleFlight)}.</p>
+ *
+ * @param <K> key type
+ * @param <V> value type, shared between threads
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Computations in progress keyed by their key
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum time a thread waits for another thread's computation in milliseconds,
+     * 0 to wait until it finishes
+     */
+    private volatile long waitTimeoutMillis;
+
+    /**
+     * Number of calls answered by another thread's computation
+     */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Constructs a single-flight group whose waiters wait until the computation finishes
+     */
+    public SingleFlight() {
+    }
+
+    /**
+     * Constructs a single-flight group with a waiter timeout
+     *
+     * @param timeout maximum time to wait for another thread's computation, 0 for no limit
+     * @param unit    unit of the timeout
+     */
+    public SingleFlight(long timeout, TimeUnit unit) {
+        setWaitTimeout(timeout, unit);
+    }
+
+    /**
+     * Computes the value for a key, or waits for the computation already running for it
+     *
+     * @param key     the key
+     * @param compute function computing the value
+     * @return the computed value, possibly computed by another thread
+     * @throws InFlightTimeoutException if the wait timeout elapsed before another thread's
+     *                                  computation finished
+     */
+    public V execute(K key, Function<? super K, ? extends V> compute) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = calls.putIfAbsent(key, call);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            V value = compute.apply(key);
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    private V await(CompletableFuture<V> running) {
+        long timeout = waitTimeoutMillis;
+        try {
+            return timeout > 0 ? running.get(timeout, TimeUnit.MILLISECONDS) : running.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new ParseException("In-flight computation failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new InFlightTimeoutException(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParseException("Interrupted while waiting for an in-flight computation", e);
+        }
+    }
+
+    /**
+     * Sets the maximum time a thread waits for another thread's computation
+     *
+     * @param timeout maximum time to wait, 0 for no limit
+     * @param unit    unit of the timeout
+     */
+    public void setWaitTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Wait timeout cannot be negative: " + timeout);
+        }
+        this.waitTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    public long getWaitTimeout(TimeUnit unit) {
+        return unit.convert(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the number of calls that shared another thread's computation
+     *
+     * @return coalesced calls since construction
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the number of computations currently running
+     *
+     * @return keys in flight
+     */
+    public int getInFlight() {
+        return calls.size();
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.qwzhang01.sql.tool.cache;
+
+/**
+ * Computes a cache key ("fingerprint") for a SQL statement.
+ * Two statements that only differ in insignificant whitespace, comments or a
+ * trailing semicolon produce the same fingerprint, while anything inside quoted
+ * literals and identifiers is kept verbatim so that different statements
+ * never share a key. A backslash before a closing quote makes the end of a literal
+ * dialect dependent, so the text from there on is kept verbatim. Leading and trailing
+ * comments and hints, such as the trace comments added by tracing layers, are not part
+ * of the fingerprint (see {@link StrippedSql}); optimizer hints inside the statement
+ * are kept.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public final class SqlFingerprint {
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SqlFingerprint() {
+    }
+
+    /**
+     * Builds the fingerprint of a SQL statement by removing leading and trailing
+     * comments, dropping plain comments and collapsing every run of whitespace outside
+     * quotes into one space, trimming both ends and removing trailing semicolons
+     *
+     * @param sql the SQL statement
+     * @return the fingerprint, or an empty string for null input
+     */
+    public static String of(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        StrippedSql stripped = StrippedSql.of(sql);
+        int length = stripped.getBodyEnd();
+        StringBuilder builder = new StringBuilder(length - stripped.getBodyStart());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = stripped.getBodyStart(); i < length; i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && quote != '`' && i + 1 < length && sql.charAt(i + 1) == quote) {
+                    // the literal ends here in standard SQL but not in MySQL: keep the
+                    // rest verbatim so that no whitespace inside a literal is collapsed
+                    builder.append(sql, i, length);
+                    return builder.toString();
+                }
+                builder.append(c);
+                if (c == '\\' && quote != '`' && i + 1 < length) {
+                    builder.append(sql.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int newline = sql.indexOf('\n', i + 2);
+                i = newline < 0 || newline >= length ? length : newline;
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (c == '/' && i + 2 < length && sql.charAt(i + 1) == '*'
+                    && sql.charAt(i + 2) != '+' && sql.charAt(i + 2) != '!') {
+                int close = sql.indexOf("*/", i + 2);
+                i = close < 0 || close >= length ? length : close + 1;
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            }
+            builder.append(c);
+        }
+        int end = builder.length();
+        while (end > 0 && (builder.charAt(end - 1) == ';' || builder.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        builder.setLength(end);
+        return builder.toString();
+    }
+
+    /**
+     * Builds the shape of a SQL statement: its fingerprint with every string and numeric
+     * literal replaced by {@code ?}, so that statements that only differ in their
+     * constants share one shape. Unlike the fingerprint, the shape is not a cache key;
+     * it groups statements for reporting.
+     *
+     * @param sql the SQL statement
+     * @return the shape, or an empty string for null input
+     */
+    public static String shape(String sql) {
+        String fingerprint = of(sql);
+        int length = fingerprint.length();
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = fingerprint.charAt(i);
+            if (c == '"' || c == '`') {
+                int close = fingerprint.indexOf(c, i + 1);
+                int end = close < 0 ? length : close + 1;
+                builder.append(fingerprint, i, end);
+                i = end - 1;
+            } else if (c == '\'') {
+                while (++i < length) {
+                    char next = fingerprint.charAt(i);
+                    if (next == '\\') {
+                        i++;
+                    } else if (next == '\'') {
+                        if (i + 1 < length && fingerprint.charAt(i + 1) == '\'') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                builder.append('?');
+            } else if (Character.isDigit(c) && !isIdentifierPart(builder)) {
+                while (i + 1 < length && (Character.isLetterOrDigit(fingerprint.charAt(i + 1))
+                        || fingerprint.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                builder.append('?');
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isIdentifierPart(StringBuilder builder) {
+        if (builder.length() == 0) {
+            return false;
+        }
+        char last = builder.charAt(builder.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+}
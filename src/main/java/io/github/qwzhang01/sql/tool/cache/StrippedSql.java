@@ -0,0 +1,179 @@
+package io.github.qwzhang01.sql.tool.cache;
+
+/**
+ * SQL statement split into leading comments, statement body and trailing comments.
+ * Tracing layers prepend comments such as /&#42; trace_id=... &#42;/ that make every
+ * statement text unique; caches key on the body only and {@link #reattach(String)}
+ * wraps rewritten output in the original comments again. Optimizer hints
+ * (/&#42;+ ... &#42;/) before or after the statement are treated like comments.
+ * MySQL executable comments (/&#42;! ... &#42;/) are statement text and stay in
+ * the body.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public final class StrippedSql {
+
+    /**
+     * The original statement
+     */
+    private final String sql;
+
+    /**
+     * Start of the statement body (inclusive)
+     */
+    private final int bodyStart;
+
+    /**
+     * End of the statement body (exclusive)
+     */
+    private final int bodyEnd;
+
+    private StrippedSql(String sql, int bodyStart, int bodyEnd) {
+        this.sql = sql;
+        this.bodyStart = bodyStart;
+        this.bodyEnd = bodyEnd;
+    }
+
+    /**
+     * Splits a statement into leading comments, body and trailing comments
+     *
+     * @param sql the SQL statement
+     * @return the split statement
+     */
+    public static StrippedSql of(String sql) {
+        if (sql == null) {
+            return new StrippedSql("", 0, 0);
+        }
+        int length = sql.length();
+        if (sql.indexOf("/*") < 0 && sql.indexOf("--") < 0) {
+            int start = 0;
+            int end = length;
+            while (start < end && Character.isWhitespace(sql.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(sql.charAt(end - 1))) {
+                end--;
+            }
+            return new StrippedSql(sql, start, end);
+        }
+
+        int start = -1;
+        int end = 0;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int next;
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int newline = sql.indexOf('\n', i + 2);
+                i = newline < 0 ? length : newline + 1;
+                continue;
+            } else if (c == '/' && i + 2 < length && sql.charAt(i + 1) == '*' && sql.charAt(i + 2) != '!') {
+                int close = sql.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+                continue;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                next = skipQuoted(sql, i, c);
+            } else {
+                next = i + 1;
+            }
+            if (start < 0) {
+                start = i;
+            }
+            end = next;
+            i = next;
+        }
+        return start < 0 ? new StrippedSql(sql, length, length) : new StrippedSql(sql, start, end);
+    }
+
+    /**
+     * Finds the end of a quoted literal or identifier. A backslash before the quote
+     * character ends the literal in standard SQL but escapes the quote in MySQL; as the
+     * end is then ambiguous, the rest of the statement is treated as part of the literal.
+     */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int length = sql.length();
+        for (int i = start + 1; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    return length;
+                }
+                i++;
+            } else if (c == quote) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the comments and whitespace before the statement body
+     *
+     * @return the leading part, empty if there is none
+     */
+    public String getLeading() {
+        return sql.substring(0, bodyStart);
+    }
+
+    /**
+     * Returns the statement without leading and trailing comments and whitespace
+     *
+     * @return the statement body
+     */
+    public String getBody() {
+        return bodyStart == 0 && bodyEnd == sql.length() ? sql : sql.substring(bodyStart, bodyEnd);
+    }
+
+    /**
+     * Returns the whitespace and comments after the statement body
+     *
+     * @return the trailing part, empty if there is none
+     */
+    public String getTrailing() {
+        return sql.substring(bodyEnd);
+    }
+
+    /**
+     * Checks whether the statement has leading or trailing comments
+     *
+     * @return true if comments were separated from the body
+     */
+    public boolean hasComments() {
+        return hasComment(0, bodyStart) || hasComment(bodyEnd, sql.length());
+    }
+
+    private boolean hasComment(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(sql.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wraps a rewritten statement body in the original leading and trailing comments
+     *
+     * @param body the rewritten statement body
+     * @return the rewritten statement with the original comments
+     */
+    public String reattach(String body) {
+        if (body == null || !hasComments()) {
+            return body;
+        }
+        return getLeading() + body + getTrailing();
+    }
+
+    int getBodyStart() {
+        return bodyStart;
+    }
+
+    int getBodyEnd() {
+        return bodyEnd;
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.qwzhang01.sql.tool.exception;
+
+/**
+ * Exception thrown when a thread gave up waiting for the computation of the same
+ * statement started by another thread, see
+ * {@link io.github.qwzhang01.sql.tool.cache.SingleFlight}. The statement itself was not
+ * processed by the waiting thread and is not known to be too complex; the other thread's
+ * computation simply did not finish in time and may still succeed.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class InFlightTimeoutException extends ParseException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The wait timeout in milliseconds
+     */
+    private final long timeoutMillis;
+
+    /**
+     * Constructs a new in-flight timeout exception
+     *
+     * @param timeoutMillis the wait timeout that elapsed, in milliseconds
+     */
+    public InFlightTimeoutException(long timeoutMillis) {
+        super("Timed out after " + timeoutMillis + " ms waiting for an in-flight computation of the same statement");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
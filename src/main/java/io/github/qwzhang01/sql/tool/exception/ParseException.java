@@ -28,4 +28,16 @@ public class ParseException extends RuntimeException {
     public ParseException(String message, Throwable cause) {
         super(message, cause);
     }
-}
\ No newline at end of file
+
+    /**
+     * Constructs a new parse exception with control over suppression and stack traces
+     *
+     * @param message            the detail message explaining the parsing error
+     * @param cause              the cause of the parsing error
+     * @param enableSuppression  whether suppression is enabled
+     * @param writableStackTrace whether the stack trace should be writable
+     */
+    protected ParseException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.qwzhang01.sql.tool.exception;
+
+/**
+ * Exception thrown when a SQL statement exceeds a configured complexity limit.
+ * It is raised before parsing for text limits (length, nesting depth, tokens) and
+ * during parsing or traversal for the AST node and wall-clock limits, so that a
+ * single pathological statement fails fast instead of exhausting CPU or stack.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SqlComplexityException extends ParseException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Kinds of complexity limits
+     */
+    public enum Limit {
+        /**
+         * Maximum number of characters
+         */
+        LENGTH,
+        /**
+         * Maximum nesting depth of parentheses or expressions
+         */
+        DEPTH,
+        /**
+         * Maximum number of lexical tokens
+         */
+        TOKENS,
+        /**
+         * Maximum number of visited AST nodes
+         */
+        NODES,
+        /**
+         * Wall-clock time budget in milliseconds
+         */
+        TIME
+    }
+
+    /**
+     * The limit that was exceeded
+     */
+    private final Limit limit;
+
+    /**
+     * The configured threshold
+     */
+    private final long threshold;
+
+    /**
+     * The observed value that exceeded the threshold
+     */
+    private final long actual;
+
+    /**
+     * Constructs a new complexity exception
+     *
+     * @param limit     the limit that was exceeded
+     * @param threshold the configured threshold
+     * @param actual    the observed value
+     */
+    public SqlComplexityException(Limit limit, long threshold, long actual) {
+        super(String.format("SQL exceeds %s limit: %d > %d", limit.name().toLowerCase(), actual, threshold));
+        this.limit = limit;
+        this.threshold = threshold;
+        this.actual = actual;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public long getActual() {
+        return actual;
+    }
+}
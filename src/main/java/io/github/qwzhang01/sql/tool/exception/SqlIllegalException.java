@@ -10,6 +10,11 @@ package io.github.qwzhang01.sql.tool.exception;
  * @since 1.0.0
  */
 public class SqlIllegalException extends ParseException {
+    /**
+     * Maximum number of SQL characters included in the exception message
+     */
+    private static final int MAX_MESSAGE_SQL_LENGTH = 512;
+
     /**
      * The illegal SQL statement that caused this exception
      */
@@ -23,10 +28,38 @@ public class SqlIllegalException extends ParseException {
      * @param sql     the illegal SQL statement that caused this exception
      */
     public SqlIllegalException(String message, Throwable cause, String sql) {
-        super(message + ": " + sql, cause);
+        super(message + ": " + abbreviate(sql), cause);
         this.sql = sql;
     }
 
+    /**
+     * Constructs a new illegal SQL exception without a stack trace and suppression.
+     * Such instances are cheap to create and safe to rethrow repeatedly, e.g. from a
+     * cache of known-bad statements.
+     *
+     * @param message the detail message explaining the illegal SQL
+     * @param cause   the cause of the exception
+     * @param sql     the illegal SQL statement that caused this exception
+     * @param stackless true to create the exception without a stack trace
+     */
+    public SqlIllegalException(String message, Throwable cause, String sql, boolean stackless) {
+        super(message + ": " + abbreviate(sql), cause, !stackless, !stackless);
+        this.sql = sql;
+    }
+
+    /**
+     * Shortens long SQL so that multi-KB statements do not end up in exception messages
+     *
+     * @param sql the SQL statement
+     * @return the SQL, truncated with its total length appended if too long
+     */
+    private static String abbreviate(String sql) {
+        if (sql == null || sql.length() <= MAX_MESSAGE_SQL_LENGTH) {
+            return sql;
+        }
+        return sql.substring(0, MAX_MESSAGE_SQL_LENGTH) + "... (" + sql.length() + " chars)";
+    }
+
     /**
      * Gets the illegal SQL statement that caused this exception
      *
@@ -0,0 +1,101 @@
+package io.github.qwzhang01.sql.tool.helper;
+
+import io.github.qwzhang01.sql.tool.model.PermissionRule;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A permission rule whose condition has been parsed ahead of time.
+ * The condition is specialized once per table qualifier (the alias the table has in a
+ * statement) and the specialized expression is reused afterwards. Specialized
+ * expressions are shared between statements and must therefore never be modified.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+class CompiledPermissionRule {
+
+    /**
+     * The source rule
+     */
+    private final PermissionRule rule;
+
+    /**
+     * Parser of the condition
+     */
+    private final SqlParser parser;
+
+    /**
+     * Lower-cased, unquoted table name used as registry key
+     */
+    private final String tableKey;
+
+    /**
+     * Specialized conditions keyed by the qualifier they were built for
+     */
+    private final Map<String, Expression> byQualifier = new ConcurrentHashMap<>();
+
+    CompiledPermissionRule(PermissionRule rule, SqlParser parser) {
+        if (rule == null || rule.getTable() == null || rule.getTable().isBlank()) {
+            throw new IllegalArgumentException("Permission rule table cannot be empty");
+        }
+        if (rule.getCondition() == null || rule.getCondition().isBlank()) {
+            throw new IllegalArgumentException("Permission rule condition cannot be empty: " + rule);
+        }
+        this.rule = rule;
+        this.parser = parser;
+        this.tableKey = key(rule.getTable());
+        String qualifier = rule.getTable().trim();
+        byQualifier.put(qualifier, specialize(qualifier));
+    }
+
+    /**
+     * Normalizes a table name into a registry key
+     *
+     * @param table the table name, possibly quoted
+     * @return lower-cased table name without quotes
+     */
+    static String key(String table) {
+        return table.replace("`", "").replace("\"", "").replace("[", "").replace("]", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    PermissionRule getRule() {
+        return rule;
+    }
+
+    String getTableKey() {
+        return tableKey;
+    }
+
+    /**
+     * Gets the condition with the rule's table columns qualified by the given name
+     *
+     * @param qualifier the alias (or name) of the table in the target statement
+     * @return the shared, read-only condition expression
+     */
+    Expression getCondition(String qualifier) {
+        return byQualifier.computeIfAbsent(qualifier, this::specialize);
+    }
+
+    private Expression specialize(String qualifier) {
+        Expression expression = parser.parseExpression(rule.getCondition(), false);
+        expression.accept(new ExpressionVisitorAdapter<Void>() {
+            @Override
+            public <S> Void visit(Column column, S context) {
+                Table table = column.getTable();
+                if (table == null || table.getName() == null || key(table.getName()).equals(tableKey)) {
+                    column.setTable(new Table(qualifier));
+                }
+                return null;
+            }
+        }, null);
+        return expression;
+    }
+}
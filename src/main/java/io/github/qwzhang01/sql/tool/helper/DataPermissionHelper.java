@@ -0,0 +1,134 @@
+package io.github.qwzhang01.sql.tool.helper;
+
+import io.github.qwzhang01.sql.tool.cache.StrippedSql;
+import io.github.qwzhang01.sql.tool.exception.UnSupportedException;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ScopedConditionVisitor;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
+import io.github.qwzhang01.sql.tool.monitor.SlowLog;
+import io.github.qwzhang01.sql.tool.wrapper.OffloadedSql;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+
+import java.util.List;
+
+/**
+ * Applies row-level data permission rules to SQL statements.
+ * All rules matching the tables of a statement are resolved against the aliases used in
+ * that statement and merged into the query block of each table (outer query, derived
+ * tables, subqueries, CTEs and set operation branches, see
+ * {@link ScopedConditionVisitor}) with one parse and one deparse, instead of one
+ * {@link ParserHelper#addWhere(String, String)} round trip per rule. Rule conditions are
+ * pre-parsed by the {@link PermissionRuleRegistry}, which can be updated at any time
+ * without blocking concurrent calls.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class DataPermissionHelper {
+
+    /**
+     * Registry providing the rules per table
+     */
+    private final PermissionRuleRegistry registry;
+
+    /**
+     * Parser of the engine the statements are rewritten with
+     */
+    private final SqlParser parser;
+
+    /**
+     * Constructs a permission helper backed by the given registry
+     *
+     * @param registry the rule registry
+     */
+    public DataPermissionHelper(PermissionRuleRegistry registry) {
+        this(SqlToolEngine.getDefault(), registry);
+    }
+
+    /**
+     * Constructs a permission helper parsing with the limits, dialect features, negative
+     * cache and slow log of the given engine
+     *
+     * @param engine   the engine
+     * @param registry the rule registry
+     */
+    public DataPermissionHelper(SqlToolEngine engine, PermissionRuleRegistry registry) {
+        this.parser = engine.getParser();
+        this.registry = registry;
+    }
+
+    public PermissionRuleRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Applies all matching permission rules to the given SQL statement.
+     * Statements without matching rules are returned unchanged.
+     *
+     * @param sql the original SQL statement
+     * @return the SQL with all matching rule conditions added to the query blocks of
+     * their tables
+     * @throws UnSupportedException if a table with matching rules appears in a statement
+     *                              type whose query blocks cannot receive conditions
+     */
+    public String apply(String sql) {
+        if (registry.isEmpty()) {
+            return sql;
+        }
+        StrippedSql stripped = StrippedSql.of(sql);
+        OffloadedSql offloaded = parser.offload(stripped.getBody());
+        Statement statement = parser.parse(offloaded.getSql());
+
+        PermissionStatementVisitor visitor = new PermissionStatementVisitor();
+        SlowLog slowLog = parser.getSlowLog();
+        long start = slowLog.start();
+        try {
+            statement.accept(visitor);
+            if (visitor.getSql() == null) {
+                rejectRuleTables(statement);
+                return sql;
+            }
+            if (visitor.getInjected() == 0) {
+                return sql;
+            }
+            return stripped.reattach(offloaded.restore(visitor.getSql()));
+        } finally {
+            slowLog.finish(SlowLog.Phase.DEPARSE, sql, start);
+        }
+    }
+
+    /**
+     * Fails closed for statement types that are not rewritten (e.g. MERGE) but read
+     * tables with rules, rather than returning them unfiltered
+     *
+     * @param statement the parsed statement
+     */
+    private void rejectRuleTables(Statement statement) {
+        TableFinder<?> finder = new TableFinder<>();
+        finder.setParser(parser);
+        finder.setLenient(true);
+        for (SqlTable table : finder.getTables(statement)) {
+            if (!registry.getCompiled(table.getName()).isEmpty()) {
+                throw new UnSupportedException("Permission rules cannot be applied to "
+                        + statement.getClass().getSimpleName() + " statements, table: " + table.getName());
+            }
+        }
+    }
+
+    /**
+     * Adds the rule conditions of every physical table, in the query block the table
+     * belongs to
+     */
+    private class PermissionStatementVisitor extends ScopedConditionVisitor {
+
+        @Override
+        protected void addConditions(List<Expression> conditions, Table table, Table qualifier) {
+            for (CompiledPermissionRule rule : registry.getCompiled(table.getName())) {
+                conditions.add(rule.getCondition(qualifier.getFullyQualifiedName()));
+            }
+        }
+    }
+}
@@ -1,18 +1,16 @@
 package io.github.qwzhang01.sql.tool.helper;
 
-import io.github.qwzhang01.sql.tool.jsqlparser.param.ParamExtractor;
-import io.github.qwzhang01.sql.tool.jsqlparser.visitor.MergeStatementVisitor;
-import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ParamFinder;
-import io.github.qwzhang01.sql.tool.jsqlparser.visitor.SplitStatementVisitor;
-import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import io.github.qwzhang01.sql.tool.cache.AnalysisCache;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderScanner;
+import io.github.qwzhang01.sql.tool.model.AnalysisResult;
+import io.github.qwzhang01.sql.tool.model.BulkInsert;
+import io.github.qwzhang01.sql.tool.model.SqlAnalysis;
 import io.github.qwzhang01.sql.tool.model.SqlParam;
+import io.github.qwzhang01.sql.tool.model.SqlParamRun;
 import io.github.qwzhang01.sql.tool.model.SqlTable;
-import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
-import net.sf.jsqlparser.expression.Expression;
-import net.sf.jsqlparser.statement.Statement;
-import net.sf.jsqlparser.statement.select.Join;
+import io.github.qwzhang01.sql.tool.monitor.OperationMetrics;
+import io.github.qwzhang01.sql.tool.replay.WorkloadRecorder;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -20,12 +18,19 @@ import java.util.regex.Pattern;
  * Helper class providing utility methods for JSQLParser operations.
  * This class offers convenient methods for extracting tables, parameters,
  * and dynamically modifying SQL statements by adding JOIN and WHERE clauses.
+ * The methods delegate to the default {@link SqlToolEngine}; build an engine to use
+ * isolated settings and caches.
  *
  * @author Avin Zhang
  * @since 1.0.0
  */
 public class ParserHelper {
-    
+
+    /**
+     * Default budget for the estimated size of the cached analyses in bytes
+     */
+    public static final long DEFAULT_ANALYSIS_CACHE_BYTES = 16L * 1024 * 1024;
+
     /**
      * Extracts all table names from the given SQL statement
      *
@@ -33,7 +38,7 @@ public class ParserHelper {
      * @return list of SqlTable objects representing all tables found in the SQL
      */
     public static List<SqlTable> getTables(String sql) {
-        return new ArrayList<>(TableFinder.findTablesOrOtherSources(sql));
+        return SqlToolEngine.getDefault().getTables(sql);
     }
 
     /**
@@ -43,19 +48,123 @@ public class ParserHelper {
      * @return list of SqlParam objects representing all parameters found
      */
     public static List<SqlParam> getParam(String sql) {
-        return new ArrayList<>(ParamFinder.find(sql));
+        return SqlToolEngine.getDefault().getParam(sql);
+    }
+
+    /**
+     * Extracts tables and parameters of the given SQL statement with a single parse.
+     * Results are cached per statement fingerprint, and repeated calls with the same
+     * {@code String} instance on one thread are answered without looking at the text.
+     * Unsupported statement types are reported by {@link SqlAnalysis#getUnsupportedType()}
+     * instead of throwing.
+     *
+     * @param sql the SQL statement to analyze
+     * @return the shared, unmodifiable analysis of the statement
+     */
+    public static SqlAnalysis analyze(String sql) {
+        return SqlToolEngine.getDefault().analyze(sql);
+    }
+
+    /**
+     * Gets the cache behind {@link #analyze(String)}, e.g. to read its hit counters or
+     * to clear it after a configuration change
+     *
+     * @return the analysis cache
+     */
+    public static AnalysisCache<SqlAnalysis> getAnalysisCache() {
+        return SqlToolEngine.getDefault().getAnalysisCache();
+    }
+
+    /**
+     * Gets the latency histograms of the entry points, broken down by statement type
+     *
+     * @return the operation metrics
+     */
+    public static OperationMetrics getMetrics() {
+        return SqlToolEngine.getDefault().getMetrics();
+    }
+
+    /**
+     * Starts or stops capturing the calls of the entry points, e.g. to replay production
+     * traffic offline with {@link io.github.qwzhang01.sql.tool.replay.WorkloadReplayer}
+     *
+     * @param recorder the recorder, null to stop capturing
+     */
+    public static void setRecorder(WorkloadRecorder recorder) {
+        SqlToolEngine.getDefault().setRecorder(recorder);
+    }
+
+    /**
+     * Extracts all parameters (placeholders) from the given SQL statement as run-length
+     * encoded runs. Long IN lists of placeholders such as {@code id IN (?, ?, ...)}
+     * are reported as one run per list instead of one parameter per placeholder.
+     *
+     * @param sql the SQL statement to parse
+     * @return list of SqlParamRun objects ordered by placeholder index
+     */
+    public static List<SqlParamRun> getParamRuns(String sql) {
+        return SqlToolEngine.getDefault().getParamRuns(sql);
+    }
+
+    /**
+     * Recognizes a multi-row {@code INSERT ... VALUES} statement without parsing it into
+     * an AST. Bulk statements with tens of thousands of rows are analyzed in one pass and
+     * described by their row template and row count.
+     *
+     * @param sql the SQL statement
+     * @return the per-column parameter mapping and row count, or null if the statement is
+     * not a recognized multi-row INSERT and must be analyzed with {@link #getParam(String)}
+     */
+    public static BulkInsert getBulkInsert(String sql) {
+        return SqlToolEngine.getDefault().getBulkInsert(sql);
+    }
+
+    /**
+     * Extracts all table names from the given SQL statement without throwing for
+     * unsupported statement types (e.g. CREATE INDEX, SET, SHOW COLUMNS)
+     *
+     * @param sql the SQL statement to parse
+     * @return result holding the tables, or the unsupported statement type
+     */
+    public static AnalysisResult<List<SqlTable>> tryGetTables(String sql) {
+        return SqlToolEngine.getDefault().tryGetTables(sql);
+    }
+
+    /**
+     * Extracts all parameters from the given SQL statement without throwing for
+     * unsupported statement types
+     *
+     * @param sql the SQL statement to parse
+     * @return result holding the parameters, or the unsupported statement type
+     */
+    public static AnalysisResult<List<SqlParam>> tryGetParam(String sql) {
+        return SqlToolEngine.getDefault().tryGetParam(sql);
     }
 
     /**
      * Extracts parameters after pre-processing the SQL to convert special placeholders.
      * This method converts placeholders like #{param} to standard JDBC ? placeholders.
+     * Each returned parameter carries its original placeholder name (e.g. "user.id"),
+     * see {@link SqlParam#getName()}.
      *
      * @param sql the SQL statement to parse
      * @return list of SqlParam objects representing all parameters found after preprocessing
      */
     public static List<SqlParam> getSpecParam(String sql) {
-        sql = ParamExtractor.preProcessSql(sql);
-        return new ArrayList<>(ParamFinder.find(sql));
+        return SqlToolEngine.getDefault().getSpecParam(sql);
+    }
+
+    /**
+     * Extracts parameters after converting the placeholders of all syntaxes compiled
+     * into the given scanner (e.g. #{x}, :name, $1) to JDBC ? placeholders in one pass.
+     * Each returned parameter carries its original placeholder name.
+     *
+     * @param sql     the SQL statement to parse
+     * @param scanner the scanner for the placeholder syntaxes in use
+     * @return list of SqlParam objects representing all parameters found after preprocessing
+     */
+    public static List<SqlParam> getSpecParam(String sql, PlaceholderScanner scanner) {
+        return SqlToolEngine.getDefault().getSpecParam(sql, scanner);
     }
 
     /**
@@ -66,8 +175,7 @@ public class ParserHelper {
      * @return list of SqlParam objects representing all parameters found after preprocessing
      */
     public static List<SqlParam> getSpecParam(String sql, Pattern pattern) {
-        sql = ParamExtractor.preProcessSql(sql, pattern);
-        return new ArrayList<>(ParamFinder.find(sql));
+        return SqlToolEngine.getDefault().getSpecParam(sql, pattern);
     }
 
     /**
@@ -102,50 +210,6 @@ public class ParserHelper {
      * @return the modified SQL with both clauses added
      */
     public static String addJoinAndWhere(String sql, String joinClause, String whereClause) {
-
-        if (sql != null && !sql.isEmpty()) {
-            sql = sql.trim();
-        }
-        if (joinClause != null && !joinClause.isEmpty()) {
-            joinClause = joinClause.trim();
-        }
-        if (whereClause != null && !whereClause.isEmpty()) {
-            whereClause = whereClause.trim();
-        }
-
-        MergeStatementVisitor mVisitor = new MergeStatementVisitor();
-        mVisitor.setTables(getTables(sql));
-
-
-        if (joinClause != null && !joinClause.isEmpty()) {
-
-            Statement parse = SqlParser.getInstance().parse("select * from dump_table d " + joinClause);
-            SplitStatementVisitor visitor = new SplitStatementVisitor();
-            parse.accept(visitor);
-            List<Join> joins = visitor.getJoins();
-            if (joins != null && !joins.isEmpty()) {
-                mVisitor.setJoins(joins);
-            }
-        }
-
-        if (whereClause != null && !whereClause.isEmpty()) {
-
-            if (!whereClause.toUpperCase().startsWith("WHERE")) {
-                whereClause = "WHERE " + whereClause;
-            }
-
-            Statement parse = SqlParser.getInstance().parse("select * from dump_table d " + whereClause);
-            SplitStatementVisitor visitor = new SplitStatementVisitor();
-            parse.accept(visitor);
-            Expression where = visitor.getWhere();
-            if (where != null) {
-                mVisitor.setWhere(where);
-            }
-        }
-
-
-        Statement parse = SqlParser.getInstance().parse(sql);
-        parse.accept(mVisitor);
-        return mVisitor.getSql();
+        return SqlToolEngine.getDefault().addJoinAndWhere(sql, joinClause, whereClause);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package io.github.qwzhang01.sql.tool.helper;
+
+import io.github.qwzhang01.sql.tool.model.PermissionRule;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of data permission rules keyed by table name.
+ * Rules are parsed when they are registered. The registry publishes an immutable
+ * snapshot through a volatile field: readers never lock, and every modification
+ * (including {@link #replaceAll(Collection)}) builds a new snapshot and swaps it in
+ * atomically, so rule sets can be hot-swapped while statements are being rewritten.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class PermissionRuleRegistry {
+
+    /**
+     * Current immutable snapshot: table key to compiled rules
+     */
+    private volatile Map<String, List<CompiledPermissionRule>> rules = Map.of();
+
+    /**
+     * Parser of the rule conditions
+     */
+    private final SqlParser parser;
+
+    /**
+     * Constructs a registry parsing rule conditions with the default engine
+     */
+    public PermissionRuleRegistry() {
+        this(SqlToolEngine.getDefault());
+    }
+
+    /**
+     * Constructs a registry parsing rule conditions with the dialect features of the given
+     * engine
+     *
+     * @param engine the engine
+     */
+    public PermissionRuleRegistry(SqlToolEngine engine) {
+        this.parser = engine.getParser();
+    }
+
+    /**
+     * Registers a rule in addition to the existing ones
+     *
+     * @param rule the rule to register
+     * @throws IllegalArgumentException if the rule is incomplete
+     * @throws io.github.qwzhang01.sql.tool.exception.SqlIllegalException if the condition cannot be parsed
+     */
+    public synchronized void register(PermissionRule rule) {
+        CompiledPermissionRule compiled = new CompiledPermissionRule(rule, parser);
+        Map<String, List<CompiledPermissionRule>> next = new HashMap<>(rules);
+        List<CompiledPermissionRule> list = new ArrayList<>(next.getOrDefault(compiled.getTableKey(), List.of()));
+        list.add(compiled);
+        next.put(compiled.getTableKey(), Collections.unmodifiableList(list));
+        rules = Collections.unmodifiableMap(next);
+    }
+
+    /**
+     * Replaces all registered rules. The new rules are compiled before the swap, so a
+     * failing rule leaves the current rule set untouched.
+     *
+     * @param newRules the complete new rule set
+     */
+    public synchronized void replaceAll(Collection<PermissionRule> newRules) {
+        Map<String, List<CompiledPermissionRule>> next = new HashMap<>();
+        if (newRules != null) {
+            for (PermissionRule rule : newRules) {
+                CompiledPermissionRule compiled = new CompiledPermissionRule(rule, parser);
+                next.computeIfAbsent(compiled.getTableKey(), k -> new ArrayList<>()).add(compiled);
+            }
+        }
+        next.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        rules = Collections.unmodifiableMap(next);
+    }
+
+    /**
+     * Removes all rules of a table
+     *
+     * @param table the table name
+     */
+    public synchronized void remove(String table) {
+        String key = CompiledPermissionRule.key(table);
+        if (rules.containsKey(key)) {
+            Map<String, List<CompiledPermissionRule>> next = new HashMap<>(rules);
+            next.remove(key);
+            rules = Collections.unmodifiableMap(next);
+        }
+    }
+
+    /**
+     * Gets the rules registered for a table
+     *
+     * @param table the table name, possibly quoted
+     * @return the registered rules, or an empty list
+     */
+    public List<PermissionRule> getRules(String table) {
+        List<PermissionRule> result = new ArrayList<>();
+        for (CompiledPermissionRule compiled : getCompiled(table)) {
+            result.add(compiled.getRule());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of tables having at least one rule
+     *
+     * @return the table count
+     */
+    public int size() {
+        return rules.size();
+    }
+
+    List<CompiledPermissionRule> getCompiled(String table) {
+        return rules.getOrDefault(CompiledPermissionRule.key(table), List.of());
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+}
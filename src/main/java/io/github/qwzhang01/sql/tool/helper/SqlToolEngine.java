@@ -0,0 +1,707 @@
+package io.github.qwzhang01.sql.tool.helper;
+
+import io.github.qwzhang01.sql.tool.cache.AnalysisCache;
+import io.github.qwzhang01.sql.tool.cache.LruCache;
+import io.github.qwzhang01.sql.tool.cache.StrippedSql;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.BulkInsertScanner;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.ParamExtractor;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderScanner;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderSyntax;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.MergeStatementVisitor;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ParamFinder;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.SplitStatementVisitor;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import io.github.qwzhang01.sql.tool.model.AnalysisResult;
+import io.github.qwzhang01.sql.tool.model.BulkInsert;
+import io.github.qwzhang01.sql.tool.model.ExtractedSql;
+import io.github.qwzhang01.sql.tool.model.SqlAnalysis;
+import io.github.qwzhang01.sql.tool.model.SqlParam;
+import io.github.qwzhang01.sql.tool.model.SqlParamRun;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
+import io.github.qwzhang01.sql.tool.monitor.Operation;
+import io.github.qwzhang01.sql.tool.monitor.OperationMetrics;
+import io.github.qwzhang01.sql.tool.monitor.SlowLog;
+import io.github.qwzhang01.sql.tool.replay.WorkloadRecorder;
+import io.github.qwzhang01.sql.tool.wrapper.OffloadedSql;
+import io.github.qwzhang01.sql.tool.wrapper.ParseLimits;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.Join;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Thread-safe analysis and rewrite engine owning its parser settings, analysis cache,
+ * negative cache, metrics and parse executor. Engines built with {@link #builder()} are
+ * isolated from each other, so that components of one application (or several
+ * applications in one JVM) can use different limits or dialect features without
+ * affecting each other. The static {@link ParserHelper} methods delegate to
+ * {@link #getDefault()}, which uses the {@link SqlParser#getInstance()} singleton.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SqlToolEngine implements Closeable {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final SqlParser parser;
+
+    /**
+     * Analysis results of {@link #analyze(String)}, weighed by the length of the
+     * statement fingerprint plus the estimated size of the analysis
+     */
+    private final AnalysisCache<SqlAnalysis> analysisCache;
+
+    /**
+     * Latencies of the entry points per statement type
+     */
+    private final OperationMetrics metrics = new OperationMetrics();
+
+    /**
+     * Parse executor created by the builder and shut down by {@link #close()}, or null
+     */
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Capture of the entry point calls, null when not recording
+     */
+    private volatile WorkloadRecorder recorder;
+
+    private SqlToolEngine(SqlParser parser, int analysisCacheCapacity, long analysisCacheBytes,
+                          ExecutorService ownedExecutor) {
+        this.parser = parser;
+        this.analysisCache = new AnalysisCache<>(
+                new LruCache<>(analysisCacheCapacity, true, analysisCacheBytes,
+                        (fingerprint, analysis) -> SqlAnalysis.stringSize(fingerprint) + analysis.getEstimatedSize(), false),
+                this::analyzeUncached);
+        this.ownedExecutor = ownedExecutor;
+    }
+
+    /**
+     * Gets the engine behind the static {@link ParserHelper} methods, configured through
+     * {@link SqlParser#getInstance()}
+     *
+     * @return the default engine
+     */
+    public static SqlToolEngine getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Creates a builder for an isolated engine
+     *
+     * @return a new builder with the library defaults
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Extracts all table names from the given SQL statement
+     *
+     * @param sql the SQL statement to parse
+     * @return list of SqlTable objects representing all tables found in the SQL
+     */
+    public List<SqlTable> getTables(String sql) {
+        return call(Operation.GET_TABLES, sql, NO_ARGUMENTS, () -> new ArrayList<>(findTablesOrOtherSources(sql)));
+    }
+
+    /**
+     * Extracts all parameters (placeholders) from the given SQL statement
+     *
+     * @param sql the SQL statement to parse
+     * @return list of SqlParam objects representing all parameters found
+     */
+    public List<SqlParam> getParam(String sql) {
+        return call(Operation.GET_PARAM, sql, NO_ARGUMENTS, () -> new ArrayList<>(findParams(sql)));
+    }
+
+    /**
+     * Extracts tables and parameters of the given SQL statement with a single parse, see
+     * {@link ParserHelper#analyze(String)}
+     *
+     * @param sql the SQL statement to analyze
+     * @return the shared, unmodifiable analysis of the statement
+     */
+    public SqlAnalysis analyze(String sql) {
+        return call(Operation.ANALYZE, sql, NO_ARGUMENTS, () -> analysisCache.get(sql));
+    }
+
+    /**
+     * Extracts all parameters (placeholders) from the given SQL statement as run-length
+     * encoded runs
+     *
+     * @param sql the SQL statement to parse
+     * @return list of SqlParamRun objects ordered by placeholder index
+     */
+    public List<SqlParamRun> getParamRuns(String sql) {
+        return call(Operation.GET_PARAM_RUNS, sql, NO_ARGUMENTS, () -> findParamRuns(sql));
+    }
+
+    /**
+     * Recognizes a multi-row {@code INSERT ... VALUES} statement without parsing it
+     *
+     * @param sql the SQL statement
+     * @return the per-column parameter mapping and row count, or null if the statement is
+     * not a recognized multi-row INSERT
+     */
+    public BulkInsert getBulkInsert(String sql) {
+        return call(Operation.GET_BULK_INSERT, sql, NO_ARGUMENTS, () -> BulkInsertScanner.scan(sql));
+    }
+
+    /**
+     * Extracts all table names from the given SQL statement without throwing for
+     * unsupported statement types
+     *
+     * @param sql the SQL statement to parse
+     * @return result holding the tables, or the unsupported statement type
+     */
+    public AnalysisResult<List<SqlTable>> tryGetTables(String sql) {
+        return call(Operation.TRY_GET_TABLES, sql, NO_ARGUMENTS, () -> doTryGetTables(sql));
+    }
+
+    /**
+     * Extracts all parameters from the given SQL statement without throwing for
+     * unsupported statement types
+     *
+     * @param sql the SQL statement to parse
+     * @return result holding the parameters, or the unsupported statement type
+     */
+    public AnalysisResult<List<SqlParam>> tryGetParam(String sql) {
+        return call(Operation.TRY_GET_PARAM, sql, NO_ARGUMENTS, () -> doTryGetParam(sql));
+    }
+
+    private AnalysisResult<List<SqlTable>> doTryGetTables(String sql) {
+        TableFinder<?> finder = newTableFinder(true);
+        Set<SqlTable> tables = finder.getTablesOrOtherSources(parser.parseForAnalysis(sql));
+        if (finder.getUnsupported() != null) {
+            return AnalysisResult.unsupported(finder.getUnsupported());
+        }
+        return AnalysisResult.supported(new ArrayList<>(tables));
+    }
+
+    private AnalysisResult<List<SqlParam>> doTryGetParam(String sql) {
+        ParamFinder<?> finder = newParamFinder(true);
+        Set<SqlParam> params = finder.get(parser.parseForAnalysis(sql));
+        if (finder.getUnsupported() != null) {
+            return AnalysisResult.unsupported(finder.getUnsupported());
+        }
+        return AnalysisResult.supported(new ArrayList<>(params));
+    }
+
+    /**
+     * Extracts parameters after converting placeholders like #{param} to JDBC ?
+     * placeholders. Each returned parameter carries its original placeholder name.
+     *
+     * @param sql the SQL statement to parse
+     * @return list of SqlParam objects representing all parameters found after preprocessing
+     */
+    public List<SqlParam> getSpecParam(String sql) {
+        return call(Operation.GET_SPEC_PARAM, sql, NO_ARGUMENTS,
+                () -> getNamedParam(ParamExtractor.extract(sql)));
+    }
+
+    /**
+     * Extracts parameters after converting the placeholders of all syntaxes compiled
+     * into the given scanner to JDBC ? placeholders in one pass
+     *
+     * @param sql     the SQL statement to parse
+     * @param scanner the scanner for the placeholder syntaxes in use
+     * @return list of SqlParam objects representing all parameters found after preprocessing
+     */
+    public List<SqlParam> getSpecParam(String sql, PlaceholderScanner scanner) {
+        return call(Operation.GET_SPEC_PARAM, sql, new Object[]{scanner},
+                () -> getNamedParam(scanner.scan(sql)));
+    }
+
+    /**
+     * Extracts parameters after pre-processing with a custom pattern
+     *
+     * @param sql     the SQL statement to parse
+     * @param pattern the regex pattern to match custom parameter placeholders
+     * @return list of SqlParam objects representing all parameters found after preprocessing
+     */
+    public List<SqlParam> getSpecParam(String sql, Pattern pattern) {
+        return call(Operation.GET_SPEC_PARAM, sql, new Object[]{pattern},
+                () -> new ArrayList<>(findParams(ParamExtractor.preProcessSql(sql, pattern))));
+    }
+
+    private List<SqlParam> getNamedParam(ExtractedSql extracted) {
+        Set<SqlParam> params = findParams(extracted.getSql());
+        List<SqlParam> named = new ArrayList<>(params.size());
+        for (SqlParam param : params) {
+            named.add(new SqlParam(param.getColumn(), param.getTable(), param.getIndex(),
+                    param.getIndex() == null ? null : extracted.getName(param.getIndex())));
+        }
+        return named;
+    }
+
+    /**
+     * Adds a JOIN clause to the given SQL statement
+     *
+     * @param sql        the original SQL statement
+     * @param joinClause the JOIN clause to add
+     * @return the modified SQL with the JOIN clause added
+     */
+    public String addJoin(String sql, String joinClause) {
+        return addJoinAndWhere(sql, joinClause, null);
+    }
+
+    /**
+     * Adds a WHERE clause to the given SQL statement
+     *
+     * @param sql         the original SQL statement
+     * @param whereClause the WHERE condition to add (can omit "WHERE" keyword)
+     * @return the modified SQL with the WHERE clause added
+     */
+    public String addWhere(String sql, String whereClause) {
+        return addJoinAndWhere(sql, null, whereClause);
+    }
+
+    /**
+     * Adds both JOIN and WHERE clauses to the given SQL statement, merging them with any
+     * existing ones
+     *
+     * @param sql         the original SQL statement
+     * @param joinClause  the JOIN clause to add (can be null)
+     * @param whereClause the WHERE condition to add (can be null)
+     * @return the modified SQL with both clauses added
+     */
+    public String addJoinAndWhere(String sql, String joinClause, String whereClause) {
+        return call(Operation.ADD_JOIN_AND_WHERE, sql, new Object[]{joinClause, whereClause},
+                () -> doAddJoinAndWhere(sql, joinClause, whereClause));
+    }
+
+    /**
+     * Gets the parser of this engine, e.g. to read its statistics or slow log
+     *
+     * @return the parser
+     */
+    public SqlParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Gets the cache behind {@link #analyze(String)}
+     *
+     * @return the analysis cache
+     */
+    public AnalysisCache<SqlAnalysis> getAnalysisCache() {
+        return analysisCache;
+    }
+
+    /**
+     * Gets the latency histograms of the entry points, broken down by statement type
+     *
+     * @return the operation metrics
+     */
+    public OperationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts or stops capturing the calls of the entry points
+     *
+     * @param recorder the recorder, null to stop capturing
+     */
+    public void setRecorder(WorkloadRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Shuts down the parse executor created by {@link Builder#parseThreads(int)} and stops
+     * the slow log writer thread for good after writing its pending entries; an executor
+     * passed to {@link Builder#parseExecutor(ExecutorService)} is left to its owner.
+     * Parsing continues on an executor per statement after closing. The default engine
+     * is shared and cannot be closed.
+     */
+    @Override
+    public void close() {
+        if (this == DefaultHolder.INSTANCE) {
+            return;
+        }
+        if (ownedExecutor != null) {
+            parser.setParseExecutor(null);
+            ownedExecutor.shutdown();
+        }
+        parser.getSlowLog().shutdown();
+    }
+
+    /**
+     * Runs an entry point, recording its latency and, while capturing, the call and its
+     * result. Arguments besides the statement are clauses, a {@link Pattern} or a
+     * {@link PlaceholderScanner}, and are converted to text only while capturing.
+     */
+    private <T> T call(Operation operation, String sql, Object[] arguments, Supplier<T> body) {
+        long start = metrics.start();
+        WorkloadRecorder capture = recorder;
+        if (capture == null) {
+            try {
+                return body.get();
+            } finally {
+                metrics.record(operation, sql, start);
+            }
+        }
+        long begin = System.nanoTime();
+        T result = null;
+        RuntimeException error = null;
+        try {
+            result = body.get();
+            return result;
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.record(operation, sql, start);
+            capture.record(operation, sql, recordedArguments(arguments), begin, result, error);
+        }
+    }
+
+    private static String[] recordedArguments(Object[] arguments) {
+        if (arguments.length == 1 && arguments[0] instanceof Pattern pattern) {
+            return new String[]{"pattern", pattern.pattern()};
+        }
+        if (arguments.length == 1 && arguments[0] instanceof PlaceholderScanner scanner) {
+            StringJoiner names = new StringJoiner(",");
+            for (PlaceholderSyntax syntax : scanner.getSyntaxes()) {
+                names.add(syntax.name());
+            }
+            return new String[]{"syntax", names.toString()};
+        }
+        String[] recorded = new String[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            recorded[i] = (String) arguments[i];
+        }
+        return recorded;
+    }
+
+    private TableFinder<?> newTableFinder(boolean lenient) {
+        TableFinder<?> finder = new TableFinder<>();
+        finder.setParser(parser);
+        finder.setLenient(lenient);
+        return finder;
+    }
+
+    private ParamFinder<?> newParamFinder(boolean lenient) {
+        ParamFinder<?> finder = new ParamFinder<>();
+        finder.setParser(parser);
+        finder.setLenient(lenient);
+        return finder;
+    }
+
+    private Set<SqlTable> findTablesOrOtherSources(String sql) {
+        Statement statement = parser.parseForAnalysis(sql);
+        SlowLog slowLog = parser.getSlowLog();
+        long start = slowLog.start();
+        try {
+            return newTableFinder(false).getTablesOrOtherSources(statement);
+        } finally {
+            slowLog.finish(SlowLog.Phase.VISIT, sql, start);
+        }
+    }
+
+    private List<SqlParamRun> findParamRuns(String sql) {
+        Statement statement = parser.parseForAnalysis(sql);
+        SlowLog slowLog = parser.getSlowLog();
+        long start = slowLog.start();
+        try {
+            return newParamFinder(false).getRuns(statement);
+        } finally {
+            slowLog.finish(SlowLog.Phase.VISIT, sql, start);
+        }
+    }
+
+    private Set<SqlParam> findParams(String sql) {
+        Statement statement = parser.parseForAnalysis(sql);
+        SlowLog slowLog = parser.getSlowLog();
+        long start = slowLog.start();
+        try {
+            return newParamFinder(false).get(statement);
+        } finally {
+            slowLog.finish(SlowLog.Phase.VISIT, sql, start);
+        }
+    }
+
+    private SqlAnalysis analyzeUncached(String sql) {
+        Statement statement = parser.parseForAnalysis(sql);
+        SlowLog slowLog = parser.getSlowLog();
+        long start = slowLog.start();
+        try {
+            TableFinder<?> tableFinder = newTableFinder(true);
+            Set<SqlTable> tables = tableFinder.getTablesOrOtherSources(statement);
+            ParamFinder<?> paramFinder = newParamFinder(true);
+            Set<SqlParam> params = paramFinder.get(statement);
+            String unsupported = tableFinder.getUnsupported() != null ? tableFinder.getUnsupported() : paramFinder.getUnsupported();
+            return new SqlAnalysis(new ArrayList<>(tables), new ArrayList<>(params), unsupported);
+        } finally {
+            slowLog.finish(SlowLog.Phase.VISIT, sql, start);
+        }
+    }
+
+    private String doAddJoinAndWhere(String sql, String joinClause, String whereClause) {
+        if (sql != null && !sql.isEmpty()) {
+            sql = sql.trim();
+        }
+        if (joinClause != null && !joinClause.isEmpty()) {
+            joinClause = joinClause.trim();
+        }
+        if (whereClause != null && !whereClause.isEmpty()) {
+            whereClause = whereClause.trim();
+        }
+
+        // comments around the statement and large literals are put back into the output
+        StrippedSql stripped = StrippedSql.of(sql);
+        OffloadedSql offloaded = parser.offload(stripped.getBody());
+        MergeStatementVisitor mVisitor = new MergeStatementVisitor();
+        mVisitor.setTables(new ArrayList<>(findTablesOrOtherSources(offloaded.getSql())));
+
+
+        if (joinClause != null && !joinClause.isEmpty()) {
+
+            Statement parse = parser.parse("select * from dump_table d " + joinClause);
+            SplitStatementVisitor visitor = new SplitStatementVisitor();
+            parse.accept(visitor);
+            List<Join> joins = visitor.getJoins();
+            if (joins != null && !joins.isEmpty()) {
+                mVisitor.setJoins(joins);
+            }
+        }
+
+        if (whereClause != null && !whereClause.isEmpty()) {
+
+            if (!whereClause.toUpperCase().startsWith("WHERE")) {
+                whereClause = "WHERE " + whereClause;
+            }
+
+            Statement parse = parser.parse("select * from dump_table d " + whereClause);
+            SplitStatementVisitor visitor = new SplitStatementVisitor();
+            parse.accept(visitor);
+            Expression where = visitor.getWhere();
+            if (where != null) {
+                mVisitor.setWhere(where);
+            }
+        }
+
+
+        Statement parse = parser.parse(offloaded.getSql());
+        SlowLog slowLog = parser.getSlowLog();
+        long start = slowLog.start();
+        try {
+            parse.accept(mVisitor);
+            return stripped.reattach(offloaded.restore(mVisitor.getSql()));
+        } finally {
+            slowLog.finish(SlowLog.Phase.DEPARSE, sql, start);
+        }
+    }
+
+    /**
+     * Builder of isolated engines. Unset options keep the library defaults; every engine
+     * gets its own parser, so options never leak into the default engine or other engines.
+     */
+    public static class Builder {
+
+        private ParseLimits limits;
+
+        private int negativeCacheCapacity = SqlParser.DEFAULT_NEGATIVE_CACHE_SIZE;
+
+        private long negativeCacheTtl = SqlParser.DEFAULT_NEGATIVE_CACHE_TTL_MINUTES;
+
+        private TimeUnit negativeCacheUnit = TimeUnit.MINUTES;
+
+        private int literalOffloadThreshold = SqlParser.DEFAULT_LITERAL_OFFLOAD_THRESHOLD;
+
+        private boolean instrumented = true;
+
+        private long slowThreshold = SlowLog.DEFAULT_THRESHOLD_MILLIS;
+
+        private TimeUnit slowThresholdUnit = TimeUnit.MILLISECONDS;
+
+        private Consumer<CCJSqlParser> features;
+
+        private int analysisCacheCapacity = AnalysisCache.DEFAULT_CAPACITY;
+
+        private long analysisCacheBytes = ParserHelper.DEFAULT_ANALYSIS_CACHE_BYTES;
+
+        private int parseThreads;
+
+        private ExecutorService parseExecutor;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the complexity limits enforced on parsing and traversal
+         *
+         * @param limits the limits, copied
+         * @return this builder
+         */
+        public Builder limits(ParseLimits limits) {
+            this.limits = new ParseLimits(limits);
+            return this;
+        }
+
+        /**
+         * Configures the negative cache of unparsable statements
+         *
+         * @param capacity maximum number of statements to remember, 0 to disable the cache
+         * @param ttl      time-to-live of an entry
+         * @param unit     unit of the time-to-live
+         * @return this builder
+         */
+        public Builder negativeCache(int capacity, long ttl, TimeUnit unit) {
+            this.negativeCacheCapacity = capacity;
+            this.negativeCacheTtl = ttl;
+            this.negativeCacheUnit = unit;
+            return this;
+        }
+
+        /**
+         * Sets the minimum length of string literals offloaded before analysis
+         *
+         * @param threshold minimum literal length, 0 to disable offloading
+         * @return this builder
+         */
+        public Builder literalOffloadThreshold(int threshold) {
+            this.literalOffloadThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Enables or disables parse statistics and the slow log
+         *
+         * @param instrumented false to skip timing and counting parse attempts
+         * @return this builder
+         */
+        public Builder instrumented(boolean instrumented) {
+            this.instrumented = instrumented;
+            return this;
+        }
+
+        /**
+         * Sets the duration above which a parse, visit or deparse phase is logged as slow
+         *
+         * @param threshold the threshold, 0 to disable the slow log
+         * @param unit      unit of the threshold
+         * @return this builder
+         */
+        public Builder slowThreshold(long threshold, TimeUnit unit) {
+            this.slowThreshold = threshold;
+            this.slowThresholdUnit = unit;
+            return this;
+        }
+
+        /**
+         * Sets dialect features applied to every statement parse, e.g.
+         * {@code parser -> parser.withSquareBracketQuotation(true)}
+         *
+         * @param features the feature configurer, null for the JSQLParser defaults
+         * @return this builder
+         */
+        public Builder parserFeatures(Consumer<CCJSqlParser> features) {
+            this.features = features;
+            return this;
+        }
+
+        /**
+         * Sizes the cache behind {@link SqlToolEngine#analyze(String)}
+         *
+         * @param capacity maximum number of cached analyses
+         * @param maxBytes budget for the estimated size of the cached analyses
+         * @return this builder
+         */
+        public Builder analysisCache(int capacity, long maxBytes) {
+            this.analysisCacheCapacity = capacity;
+            this.analysisCacheBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Parses on a pool of daemon threads owned by the engine instead of creating an
+         * executor per statement. At most {@code threads} statements are parsed at once;
+         * further callers wait for a free thread. The pool is shut down by
+         * {@link SqlToolEngine#close()}.
+         *
+         * @param threads number of parse threads, 0 for an executor per statement
+         * @return this builder
+         */
+        public Builder parseThreads(int threads) {
+            this.parseThreads = threads;
+            return this;
+        }
+
+        /**
+         * Parses on an executor owned by the caller, e.g. one shared by several engines
+         *
+         * @param executor the executor, null for an executor per statement
+         * @return this builder
+         */
+        public Builder parseExecutor(ExecutorService executor) {
+            this.parseExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Builds the engine
+         *
+         * @return a new engine with its own parser, caches and metrics
+         */
+        public SqlToolEngine build() {
+            SqlParser parser = new SqlParser();
+            if (limits != null) {
+                parser.setLimits(limits);
+            }
+            parser.setNegativeCache(negativeCacheCapacity, negativeCacheTtl, negativeCacheUnit);
+            parser.setLiteralOffloadThreshold(literalOffloadThreshold);
+            parser.setInstrumented(instrumented);
+            parser.getSlowLog().setThreshold(slowThreshold, slowThresholdUnit);
+            parser.setFeatures(features);
+            ExecutorService owned = null;
+            if (parseExecutor != null) {
+                parser.setParseExecutor(parseExecutor);
+            } else if (parseThreads > 0) {
+                owned = Executors.newFixedThreadPool(parseThreads, new ParseThreadFactory());
+                parser.setParseExecutor(owned);
+            }
+            return new SqlToolEngine(parser, analysisCacheCapacity, analysisCacheBytes, owned);
+        }
+    }
+
+    /**
+     * Daemon threads of engine-owned parse pools
+     */
+    private static class ParseThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOLS = new AtomicInteger();
+
+        private final int pool = POOLS.incrementAndGet();
+
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "sql-tool-parse-" + pool + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static class DefaultHolder {
+        private static final SqlToolEngine INSTANCE = new SqlToolEngine(SqlParser.getInstance(),
+                AnalysisCache.DEFAULT_CAPACITY, ParserHelper.DEFAULT_ANALYSIS_CACHE_BYTES, null);
+    }
+}
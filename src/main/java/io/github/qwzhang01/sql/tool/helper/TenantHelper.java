@@ -0,0 +1,258 @@
+package io.github.qwzhang01.sql.tool.helper;
+
+import io.github.qwzhang01.sql.tool.cache.LruCache;
+import io.github.qwzhang01.sql.tool.cache.SingleFlight;
+import io.github.qwzhang01.sql.tool.cache.SqlFingerprint;
+import io.github.qwzhang01.sql.tool.cache.StrippedSql;
+import io.github.qwzhang01.sql.tool.exception.UnSupportedException;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderScanner;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderSyntax;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TenantStatementVisitor;
+import io.github.qwzhang01.sql.tool.model.ExtractedSql;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
+import io.github.qwzhang01.sql.tool.model.TenantSql;
+import io.github.qwzhang01.sql.tool.monitor.SlowLog;
+import io.github.qwzhang01.sql.tool.wrapper.OffloadedSql;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.JdbcNamedParameter;
+import net.sf.jsqlparser.statement.Statement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper for multi-tenant SQL rewriting.
+ * Adds a tenant condition such as {@code u.tenant_id = ?} to every physical table
+ * occurrence of a SELECT, UPDATE, DELETE or INSERT ... SELECT statement in a single
+ * traversal (see {@link TenantStatementVisitor}); other statement types touching a
+ * tenant table are rejected. Rewritten statements are cached per
+ * statement fingerprint, so repeated statements are parsed and deparsed only once, and
+ * concurrent first calls for a statement share one rewrite.
+ *
+ * <p>With the tenant value {@code ?} the injected placeholders are interleaved with the
+ * placeholders of the original statement, so the tenant id cannot simply be bound first
+ * or last. {@link #rewrite(String)} reports the JDBC parameter indexes of the injected
+ * placeholders; alternatively use a literal or a named tenant value, e.g.
+ * {@code :tenantId}, which leaves the positions of the original parameters as is.</p>
+ *
+ * <p>Instances are thread-safe and are meant to be created once per configuration.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class TenantHelper {
+
+    /**
+     * Default number of rewritten statements kept in the cache
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /**
+     * Name of the placeholder standing in for an injected {@code ?} while rewriting
+     */
+    private static final String TENANT_MARKER = "__sql_tool_tenant";
+
+    /**
+     * Finds the marker placeholders among the JDBC placeholders of a rewritten statement
+     */
+    private static final PlaceholderScanner MARKER_SCANNER = PlaceholderScanner.compile(PlaceholderSyntax.COLON_NAME);
+
+    /**
+     * Parser of the engine the statements are rewritten with
+     */
+    private final SqlParser parser;
+
+    /**
+     * Name of the tenant column
+     */
+    private final String tenantColumn;
+
+    /**
+     * Tenant value expression in SQL form, e.g. "?" or "1001"
+     */
+    private final String tenantValue;
+
+    /**
+     * Tables that never receive a tenant condition
+     */
+    private final Set<String> ignoredTables;
+
+    /**
+     * Rewritten SQL keyed by the fingerprint of the original statement
+     */
+    private final LruCache<String, TenantSql> cache;
+
+    /**
+     * Coalesces concurrent rewrites of the same statement
+     */
+    private final SingleFlight<String, TenantSql> inFlight = new SingleFlight<>();
+
+    /**
+     * Constructs a tenant helper comparing the tenant column with a JDBC parameter
+     *
+     * @param tenantColumn the tenant column name, e.g. "tenant_id"
+     */
+    public TenantHelper(String tenantColumn) {
+        this(tenantColumn, "?", null, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a tenant helper
+     *
+     * @param tenantColumn  the tenant column name, e.g. "tenant_id"
+     * @param tenantValue   the SQL expression compared with the tenant column, e.g. "?",
+     *                      "1001" or ":tenantId"
+     * @param ignoredTables tables that must not receive a tenant condition (may be null)
+     * @param cacheSize     number of rewritten statements to cache
+     */
+    public TenantHelper(String tenantColumn, String tenantValue, Set<String> ignoredTables, int cacheSize) {
+        this(SqlToolEngine.getDefault(), tenantColumn, tenantValue, ignoredTables, cacheSize);
+    }
+
+    /**
+     * Constructs a tenant helper parsing with the limits, dialect features, negative cache
+     * and slow log of the given engine
+     *
+     * @param engine        the engine
+     * @param tenantColumn  the tenant column name, e.g. "tenant_id"
+     * @param tenantValue   the SQL expression compared with the tenant column, e.g. "?",
+     *                      "1001" or ":tenantId"
+     * @param ignoredTables tables that must not receive a tenant condition (may be null)
+     * @param cacheSize     number of rewritten statements to cache
+     */
+    public TenantHelper(SqlToolEngine engine, String tenantColumn, String tenantValue,
+                        Set<String> ignoredTables, int cacheSize) {
+        if (tenantColumn == null || tenantColumn.isEmpty()) {
+            throw new IllegalArgumentException("Tenant column cannot be empty");
+        }
+        this.parser = engine.getParser();
+        this.tenantColumn = tenantColumn.trim();
+        this.tenantValue = tenantValue == null || tenantValue.isEmpty() ? "?" : tenantValue.trim();
+        this.ignoredTables = ignoredTables == null ? Set.of() : Set.copyOf(ignoredTables);
+        this.cache = new LruCache<>(cacheSize);
+        // fail fast on an invalid value expression
+        parser.parseExpression(this.tenantValue);
+    }
+
+    /**
+     * Adds the tenant condition to every physical table of the given SQL statement.
+     * The statement is cached by its fingerprint but rewritten from its own text; leading
+     * and trailing comments, e.g. trace comments, are not part of the cache key and are
+     * re-attached to the rewritten statement. With the tenant value {@code ?} use
+     * {@link #rewrite(String)} to find out where the tenant id must be bound.
+     *
+     * @param sql the original SQL statement
+     * @return the rewritten SQL statement
+     * @throws UnSupportedException if a tenant table appears in a statement type whose
+     *                              query blocks cannot receive conditions, e.g. MERGE
+     */
+    public String addTenantCondition(String sql) {
+        return rewrite(sql).getSql();
+    }
+
+    /**
+     * Adds the tenant condition to every physical table of the given SQL statement, see
+     * {@link #addTenantCondition(String)}, and reports the JDBC parameter indexes of the
+     * injected placeholders. The indexes are only reported for the tenant value {@code ?};
+     * they count the {@code ?} placeholders of the rewritten statement.
+     *
+     * @param sql the original SQL statement
+     * @return the rewritten SQL statement and the indexes of the tenant placeholders
+     * @throws UnSupportedException if a tenant table appears in a statement type whose
+     *                              query blocks cannot receive conditions, e.g. MERGE
+     */
+    public TenantSql rewrite(String sql) {
+        StrippedSql stripped = StrippedSql.of(sql);
+        String body = stripped.getBody();
+        TenantSql rewritten = cache.get(SqlFingerprint.of(sql), fingerprint -> doRewrite(body), inFlight);
+        String reattached = stripped.reattach(rewritten.getSql());
+        return reattached == rewritten.getSql() ? rewritten : new TenantSql(reattached, rewritten.getTenantIndexes());
+    }
+
+    /**
+     * Sets the maximum time a thread waits for a rewrite of the same statement started by
+     * another thread
+     *
+     * @param timeout maximum time to wait, 0 for no limit
+     * @param unit    unit of the timeout
+     */
+    public void setWaitTimeout(long timeout, TimeUnit unit) {
+        inFlight.setWaitTimeout(timeout, unit);
+    }
+
+    /**
+     * Clears all cached rewritten statements
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private TenantSql doRewrite(String sql) {
+        boolean marked = "?".equals(tenantValue);
+        Expression value = marked ? new JdbcNamedParameter(TENANT_MARKER) : parser.parseExpression(tenantValue);
+        TenantStatementVisitor visitor = new TenantStatementVisitor(tenantColumn, value, ignoredTables);
+        OffloadedSql offloaded = parser.offload(sql);
+        Statement statement = parser.parse(offloaded.getSql());
+        SlowLog slowLog = parser.getSlowLog();
+        long start = slowLog.start();
+        try {
+            statement.accept(visitor);
+            if (visitor.getSql() == null) {
+                rejectTenantTables(statement, visitor);
+                return new TenantSql(sql, List.of());
+            }
+            String rewritten = offloaded.restore(visitor.getSql());
+            return marked ? unmark(rewritten) : new TenantSql(rewritten, List.of());
+        } finally {
+            slowLog.finish(SlowLog.Phase.DEPARSE, sql, start);
+        }
+    }
+
+    /**
+     * Replaces the marker placeholders with {@code ?} and records their JDBC parameter
+     * indexes; named placeholders of the original statement are not counted
+     *
+     * @param sql the rewritten statement with marker placeholders
+     * @return the statement with JDBC placeholders and the tenant indexes
+     */
+    private static TenantSql unmark(String sql) {
+        ExtractedSql extracted = MARKER_SCANNER.scan(sql);
+        List<Integer> indexes = new ArrayList<>();
+        int index = 0;
+        for (String name : extracted.getNames()) {
+            if (name == null) {
+                index++;
+            } else if (TENANT_MARKER.equals(name)) {
+                indexes.add(++index);
+            }
+        }
+        return new TenantSql(sql.replace(":" + TENANT_MARKER, "?"), indexes);
+    }
+
+    /**
+     * Fails closed for statement types that are not rewritten (e.g. MERGE) but touch
+     * tenant tables, rather than running them without a tenant condition
+     *
+     * @param statement the parsed statement
+     * @param visitor   the visitor that did not rewrite the statement
+     */
+    private void rejectTenantTables(Statement statement, TenantStatementVisitor visitor) {
+        TableFinder<?> finder = new TableFinder<>();
+        finder.setParser(parser);
+        finder.setLenient(true);
+        for (SqlTable table : finder.getTables(statement)) {
+            if (visitor.isTenantTable(table.getName())) {
+                throw new UnSupportedException("Tenant condition cannot be added to "
+                        + statement.getClass().getSimpleName() + " statements, table: " + table.getName());
+            }
+        }
+    }
+}
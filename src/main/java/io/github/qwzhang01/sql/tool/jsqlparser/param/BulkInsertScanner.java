@@ -0,0 +1,300 @@
+package io.github.qwzhang01.sql.tool.jsqlparser.param;
+
+import io.github.qwzhang01.sql.tool.exception.SqlIllegalException;
+import io.github.qwzhang01.sql.tool.model.BulkInsert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming recognizer for multi-row {@code INSERT INTO t (a, b) VALUES (?, ?), (?, ?) ...}
+ * statements. Bulk loaders generate such statements with tens of thousands of rows;
+ * parsing them into a JSQLParser AST allocates several objects per value. This scanner
+ * reads the column list once and then checks each row against the template of the
+ * first row in a single forward pass, without building any per-row objects.
+ *
+ * <p>Values may be placeholders ({@code ?}), string or numeric literals, {@code NULL},
+ * {@code TRUE}, {@code FALSE} or {@code DEFAULT}. Statements outside that shape, e.g.
+ * without a column list, with expressions as values, with rows that place their
+ * placeholders in different columns, or with trailing clauses such as
+ * {@code ON DUPLICATE KEY UPDATE}, are not recognized and should be analyzed by the
+ * regular parser instead.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class BulkInsertScanner {
+
+    private static final int PLACEHOLDER = 1;
+
+    private static final int LITERAL = 2;
+
+    private static final int UNSUPPORTED = 3;
+
+    private final String sql;
+
+    private final int length;
+
+    private int pos;
+
+    private BulkInsertScanner(String sql) {
+        this.sql = sql;
+        this.length = sql.length();
+    }
+
+    /**
+     * Scans a multi-row INSERT statement
+     *
+     * @param sql the SQL statement
+     * @return the statement description, or null if the statement is not a recognized
+     * multi-row INSERT
+     * @throws SqlIllegalException if a row does not have one value per column
+     */
+    public static BulkInsert scan(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        return new BulkInsertScanner(sql).scan();
+    }
+
+    private BulkInsert scan() {
+        skipSpace();
+        if (!keyword("INSERT")) {
+            return null;
+        }
+        skipSpace();
+        if (keyword("INTO")) {
+            skipSpace();
+        }
+        String table = identifier();
+        if (table == null) {
+            return null;
+        }
+        skipSpace();
+        if (!consume('(')) {
+            return null;
+        }
+        List<String> columns = new ArrayList<>();
+        do {
+            skipSpace();
+            String column = identifier();
+            if (column == null) {
+                return null;
+            }
+            columns.add(column);
+            skipSpace();
+        } while (consume(','));
+        if (!consume(')')) {
+            return null;
+        }
+        skipSpace();
+        if (!keyword("VALUES") && !keyword("VALUE")) {
+            return null;
+        }
+
+        int width = columns.size();
+        boolean[] template = new boolean[width];
+        int rows = 0;
+        do {
+            skipSpace();
+            if (!consume('(')) {
+                return null;
+            }
+            int column = 0;
+            do {
+                if (column == width) {
+                    throw shapeError(rows, width);
+                }
+                int kind = value();
+                if (kind == UNSUPPORTED) {
+                    return null;
+                }
+                if (rows == 0) {
+                    template[column] = kind == PLACEHOLDER;
+                } else if (template[column] != (kind == PLACEHOLDER)) {
+                    return null;
+                }
+                column++;
+            } while (consume(','));
+            if (column != width) {
+                throw shapeError(rows, width);
+            }
+            if (!consume(')')) {
+                return null;
+            }
+            rows++;
+            skipSpace();
+        } while (consume(','));
+
+        consume(';');
+        skipSpace();
+        if (pos != length) {
+            return null;
+        }
+
+        List<String> paramColumns = new ArrayList<>();
+        for (int i = 0; i < width; i++) {
+            if (template[i]) {
+                paramColumns.add(columns.get(i));
+            }
+        }
+        return new BulkInsert(table, columns, paramColumns, rows);
+    }
+
+    private SqlIllegalException shapeError(int row, int width) {
+        return new SqlIllegalException("Row " + (row + 1) + " of INSERT does not have " + width + " values", null, sql);
+    }
+
+    /**
+     * Reads one value and the whitespace following it
+     *
+     * @return the kind of the value
+     */
+    private int value() {
+        skipSpace();
+        if (pos >= length) {
+            return UNSUPPORTED;
+        }
+        char c = sql.charAt(pos);
+        int kind;
+        if (c == '?') {
+            pos++;
+            kind = PLACEHOLDER;
+        } else if (c == '\'') {
+            kind = string() ? LITERAL : UNSUPPORTED;
+        } else if (c == '-' || c == '+' || c == '.' || isDigit(c)) {
+            kind = number() ? LITERAL : UNSUPPORTED;
+        } else if (keyword("NULL") || keyword("TRUE") || keyword("FALSE") || keyword("DEFAULT")) {
+            kind = LITERAL;
+        } else {
+            kind = UNSUPPORTED;
+        }
+        skipSpace();
+        // anything but a separator means the value is an expression, e.g. "? + 1"
+        if (pos >= length || (sql.charAt(pos) != ',' && sql.charAt(pos) != ')')) {
+            return UNSUPPORTED;
+        }
+        return kind;
+    }
+
+    private boolean string() {
+        for (pos++; pos < length; pos++) {
+            char c = sql.charAt(pos);
+            if (c == '\\') {
+                pos++;
+            } else if (c == '\'') {
+                if (pos + 1 < length && sql.charAt(pos + 1) == '\'') {
+                    pos++;
+                } else {
+                    pos++;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean number() {
+        if (sql.charAt(pos) == '-' || sql.charAt(pos) == '+') {
+            pos++;
+        }
+        int start = pos;
+        while (pos < length && (isDigit(sql.charAt(pos)) || sql.charAt(pos) == '.')) {
+            pos++;
+        }
+        if (pos == start) {
+            return false;
+        }
+        if (pos < length && (sql.charAt(pos) == 'e' || sql.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < length && (sql.charAt(pos) == '-' || sql.charAt(pos) == '+')) {
+                pos++;
+            }
+            while (pos < length && isDigit(sql.charAt(pos))) {
+                pos++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a possibly quoted and qualified identifier
+     *
+     * @return the identifier as written, or null if there is none
+     */
+    private String identifier() {
+        int start = pos;
+        do {
+            if (pos >= length) {
+                return null;
+            }
+            char c = sql.charAt(pos);
+            if (c == '`' || c == '"' || c == '[') {
+                char close = c == '[' ? ']' : c;
+                int end = sql.indexOf(close, pos + 1);
+                if (end < 0) {
+                    return null;
+                }
+                pos = end + 1;
+            } else if (isWordChar(c)) {
+                while (pos < length && isWordChar(sql.charAt(pos))) {
+                    pos++;
+                }
+            } else {
+                return null;
+            }
+        } while (consume('.'));
+        return sql.substring(start, pos);
+    }
+
+    /**
+     * Consumes a case-insensitive keyword that is not followed by a word character
+     */
+    private boolean keyword(String keyword) {
+        int end = pos + keyword.length();
+        if (end > length || !sql.regionMatches(true, pos, keyword, 0, keyword.length())) {
+            return false;
+        }
+        if (end < length && isWordChar(sql.charAt(end))) {
+            return false;
+        }
+        pos = end;
+        return true;
+    }
+
+    private boolean consume(char c) {
+        if (pos < length && sql.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips whitespace and comments
+     */
+    private void skipSpace() {
+        while (pos < length) {
+            char c = sql.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '-' && pos + 1 < length && sql.charAt(pos + 1) == '-') {
+                int end = sql.indexOf('\n', pos);
+                pos = end < 0 ? length : end + 1;
+            } else if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*') {
+                int end = sql.indexOf("*/", pos + 2);
+                pos = end < 0 ? length : end + 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
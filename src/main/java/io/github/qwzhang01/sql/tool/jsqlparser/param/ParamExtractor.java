@@ -1,5 +1,7 @@
 package io.github.qwzhang01.sql.tool.jsqlparser.param;
 
+import io.github.qwzhang01.sql.tool.model.ExtractedSql;
+
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -13,18 +15,20 @@ import java.util.regex.Pattern;
  */
 public class ParamExtractor {
     /**
-     * Default pattern for matching MyBatis-style parameter placeholders: #{paramName}
+     * Uncached scanner for MyBatis-style #{param} placeholders
      */
-    private static final Pattern HASH_PARAM_PATTERN = Pattern.compile("#\\{([^}]+)\\}");
+    private static final PlaceholderScanner HASH_PARAM_SCANNER = PlaceholderScanner.compile(PlaceholderSyntax.HASH_BRACE);
 
     /**
-     * Pre-processes SQL by converting #{param} style placeholders to ? placeholders
+     * Pre-processes SQL by converting #{param} style placeholders to ? placeholders.
+     * Placeholders inside string literals, quoted identifiers and comments are left
+     * unchanged.
      *
      * @param sql the SQL statement with custom placeholders
      * @return the SQL with standard JDBC ? placeholders
      */
     public static String preProcessSql(String sql) {
-        return preProcessSql(sql, HASH_PARAM_PATTERN);
+        return extract(sql).getSql();
     }
 
     /**
@@ -46,4 +50,30 @@ public class ParamExtractor {
 
         return result.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Converts #{param} style placeholders to ? placeholders and records the name of
+     * every JDBC placeholder in a single pass over the SQL.
+     * String literals, quoted identifiers and comments are copied unchanged, so
+     * neither placeholders nor question marks inside them are counted. MyBatis
+     * options such as {@code #{id,jdbcType=INTEGER}} are dropped from the name.
+     *
+     * @param sql the SQL statement with custom placeholders
+     * @return the SQL with standard JDBC ? placeholders and the placeholder names
+     */
+    public static ExtractedSql extract(String sql) {
+        return HASH_PARAM_SCANNER.scan(sql);
+    }
+
+    /**
+     * Converts placeholders of the syntaxes compiled into the given scanner to ?
+     * placeholders and records the name of every JDBC placeholder
+     *
+     * @param sql     the SQL statement with custom placeholders
+     * @param scanner the scanner for the placeholder syntaxes in use
+     * @return the SQL with standard JDBC ? placeholders and the placeholder names
+     */
+    public static ExtractedSql extract(String sql, PlaceholderScanner scanner) {
+        return scanner.scan(sql);
+    }
+}
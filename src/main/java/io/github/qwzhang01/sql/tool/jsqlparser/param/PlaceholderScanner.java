@@ -0,0 +1,295 @@
+package io.github.qwzhang01.sql.tool.jsqlparser.param;
+
+import io.github.qwzhang01.sql.tool.cache.LruCache;
+import io.github.qwzhang01.sql.tool.model.ExtractedSql;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single-pass converter for a configured set of placeholder syntaxes.
+ * The syntaxes are compiled into one transition table indexed by the current character,
+ * so a statement mixing {@code #{x}}, {@code :name}, {@code $1} and {@code @p0} is
+ * normalized in one pass over its text instead of one regex pass per syntax. String
+ * literals, quoted identifiers and comments are copied unchanged, and plain {@code ?}
+ * placeholders are counted so that names line up with JDBC parameter indexes.
+ *
+ * <p>Normalized statements can be cached per input string. Instances are immutable
+ * apart from that cache and are safe to share between threads.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class PlaceholderScanner {
+
+    private static final byte NONE = 0;
+
+    private static final byte QUOTE = 1;
+
+    private static final byte DASH = 2;
+
+    private static final byte SLASH = 3;
+
+    private static final byte QUESTION = 4;
+
+    private static final byte HASH = 5;
+
+    private static final byte DOLLAR = 6;
+
+    private static final byte COLON = 7;
+
+    private static final byte AT = 8;
+
+    /**
+     * The compiled syntaxes
+     */
+    private final Set<PlaceholderSyntax> syntaxes;
+
+    /**
+     * Action per ASCII character, derived from the compiled syntaxes
+     */
+    private final byte[] actions = new byte[128];
+
+    /**
+     * Normalized statements keyed by the original SQL, null if caching is disabled
+     */
+    private final LruCache<String, ExtractedSql> cache;
+
+    /**
+     * Compiles a scanner for the given syntaxes
+     *
+     * @param syntaxes  the placeholder syntaxes to recognize
+     * @param cacheSize number of normalized statements to cache, 0 to disable caching
+     */
+    public PlaceholderScanner(Set<PlaceholderSyntax> syntaxes, int cacheSize) {
+        this.syntaxes = syntaxes.isEmpty() ? Set.of() : Set.copyOf(EnumSet.copyOf(syntaxes));
+        this.cache = cacheSize > 0 ? new LruCache<>(cacheSize) : null;
+        actions['\''] = QUOTE;
+        actions['"'] = QUOTE;
+        actions['`'] = QUOTE;
+        actions['-'] = DASH;
+        actions['/'] = SLASH;
+        actions['?'] = QUESTION;
+        if (this.syntaxes.contains(PlaceholderSyntax.HASH_BRACE)) {
+            actions['#'] = HASH;
+        }
+        if (this.syntaxes.contains(PlaceholderSyntax.DOLLAR_BRACE)
+                || this.syntaxes.contains(PlaceholderSyntax.DOLLAR_NUMBER)) {
+            actions['$'] = DOLLAR;
+        }
+        if (this.syntaxes.contains(PlaceholderSyntax.COLON_NAME)) {
+            actions[':'] = COLON;
+        }
+        if (this.syntaxes.contains(PlaceholderSyntax.AT_NAME)) {
+            actions['@'] = AT;
+        }
+    }
+
+    /**
+     * Compiles an uncached scanner for the given syntaxes
+     *
+     * @param syntaxes the placeholder syntaxes to recognize
+     * @return the scanner
+     */
+    public static PlaceholderScanner compile(PlaceholderSyntax... syntaxes) {
+        return new PlaceholderScanner(Set.of(syntaxes), 0);
+    }
+
+    public Set<PlaceholderSyntax> getSyntaxes() {
+        return syntaxes;
+    }
+
+    /**
+     * Converts all recognized placeholders to JDBC {@code ?} placeholders and records
+     * the name of every JDBC placeholder in order
+     *
+     * @param sql the SQL statement
+     * @return the normalized SQL and the placeholder names
+     */
+    public ExtractedSql scan(String sql) {
+        if (cache == null) {
+            return doScan(sql);
+        }
+        return cache.get(sql, this::doScan);
+    }
+
+    /**
+     * Clears the cache of normalized statements
+     */
+    public void clearCache() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private ExtractedSql doScan(String sql) {
+        int length = sql.length();
+        List<String> names = new ArrayList<>();
+        StringBuilder result = null;
+        // start of the input not yet copied to the result
+        int copied = 0;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            byte action = c < actions.length ? actions[c] : NONE;
+            if (action == NONE) {
+                i++;
+                continue;
+            }
+            // end of a recognized placeholder, -1 if there is none at i
+            int end = -1;
+            String name = null;
+            switch (action) {
+                case QUOTE -> i = skipQuoted(sql, i, c);
+                case DASH -> i = i + 1 < length && sql.charAt(i + 1) == '-' ? skipTo(sql, i + 2, "\n") : i + 1;
+                case SLASH -> i = i + 1 < length && sql.charAt(i + 1) == '*' ? skipTo(sql, i + 2, "*/") : i + 1;
+                case QUESTION -> {
+                    int digits = digitsEnd(sql, i + 1);
+                    if (digits > i + 1 && syntaxes.contains(PlaceholderSyntax.QUESTION_NUMBER)) {
+                        end = digits;
+                        name = sql.substring(i + 1, digits);
+                    } else {
+                        names.add(null);
+                        i++;
+                    }
+                }
+                case HASH -> {
+                    end = braceEnd(sql, i);
+                    if (end > 0) {
+                        name = braceName(sql, i + 2, end - 1, true);
+                    }
+                }
+                case DOLLAR -> {
+                    if (syntaxes.contains(PlaceholderSyntax.DOLLAR_BRACE)) {
+                        end = braceEnd(sql, i);
+                        if (end > 0) {
+                            name = braceName(sql, i + 2, end - 1, false);
+                        }
+                    }
+                    if (end < 0 && syntaxes.contains(PlaceholderSyntax.DOLLAR_NUMBER)
+                            && (i == 0 || !isWordChar(sql.charAt(i - 1)))) {
+                        int digits = digitsEnd(sql, i + 1);
+                        if (digits > i + 1) {
+                            end = digits;
+                            name = sql.substring(i + 1, digits);
+                        }
+                    }
+                }
+                case COLON, AT -> {
+                    // "::" casts and "@@" system variables are not placeholders
+                    boolean doubled = (i > 0 && sql.charAt(i - 1) == c)
+                            || (i + 1 < length && sql.charAt(i + 1) == c);
+                    if (!doubled && i + 1 < length && isNameStart(sql.charAt(i + 1))) {
+                        end = nameEnd(sql, i + 1);
+                        name = sql.substring(i + 1, end);
+                    }
+                }
+                default -> {
+                }
+            }
+            if (end > 0) {
+                if (result == null) {
+                    result = new StringBuilder(length);
+                }
+                result.append(sql, copied, i).append('?');
+                names.add(name);
+                i = end;
+                copied = end;
+            } else if (action >= HASH) {
+                i++;
+            }
+        }
+        if (result == null) {
+            return new ExtractedSql(sql, names);
+        }
+        result.append(sql, copied, length);
+        return new ExtractedSql(result.toString(), names);
+    }
+
+    /**
+     * Finds the end of a {@code #{...}} or {@code ${...}} placeholder
+     *
+     * @return the position after the closing brace, or -1 if there is none
+     */
+    private static int braceEnd(String sql, int start) {
+        if (start + 1 >= sql.length() || sql.charAt(start + 1) != '{') {
+            return -1;
+        }
+        int close = sql.indexOf('}', start + 2);
+        return close < 0 ? -1 : close + 1;
+    }
+
+    /**
+     * Extracts the name of a brace placeholder body, optionally without MyBatis options
+     */
+    private static String braceName(String sql, int start, int end, boolean stripOptions) {
+        if (stripOptions) {
+            for (int i = start; i < end; i++) {
+                if (sql.charAt(i) == ',') {
+                    end = i;
+                    break;
+                }
+            }
+        }
+        return sql.substring(start, end).trim();
+    }
+
+    private static int digitsEnd(String sql, int start) {
+        int i = start;
+        while (i < sql.length() && sql.charAt(i) >= '0' && sql.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int nameEnd(String sql, int start) {
+        int i = start;
+        while (i < sql.length() && (isWordChar(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        }
+        // a trailing dot ends the statement or sentence, not the name
+        while (sql.charAt(i - 1) == '.') {
+            i--;
+        }
+        return i;
+    }
+
+    private static boolean isNameStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * Skips a quoted literal or identifier; doubled quotes and backslash escapes
+     * (except in backtick identifiers) do not end it
+     *
+     * @return the position after the closing quote
+     */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int length = sql.length();
+        for (int i = start + 1; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i++;
+            } else if (c == quote) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Skips a comment
+     *
+     * @return the position after the comment terminator
+     */
+    private static int skipTo(String sql, int start, String end) {
+        int index = sql.indexOf(end, start);
+        return index < 0 ? sql.length() : index + end.length();
+    }
+}
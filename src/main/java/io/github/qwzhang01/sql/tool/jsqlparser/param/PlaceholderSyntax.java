@@ -0,0 +1,43 @@
+package io.github.qwzhang01.sql.tool.jsqlparser.param;
+
+/**
+ * Placeholder syntaxes recognized by {@link PlaceholderScanner}.
+ * Every recognized placeholder is converted to a JDBC {@code ?} placeholder; its name
+ * is the text identifying the bound value.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public enum PlaceholderSyntax {
+    /**
+     * MyBatis parameter {@code #{user.id}}, options such as {@code ,jdbcType=INTEGER}
+     * are dropped from the name
+     */
+    HASH_BRACE,
+
+    /**
+     * MyBatis substitution {@code ${column}}
+     */
+    DOLLAR_BRACE,
+
+    /**
+     * Named parameter {@code :name} as used by JPA and Spring; {@code ::} casts are
+     * not placeholders
+     */
+    COLON_NAME,
+
+    /**
+     * PostgreSQL positional parameter {@code $1}, the name is the number
+     */
+    DOLLAR_NUMBER,
+
+    /**
+     * JPA positional parameter {@code ?1}, the name is the number
+     */
+    QUESTION_NUMBER,
+
+    /**
+     * SQL Server parameter {@code @p0}; {@code @@} system variables are not placeholders
+     */
+    AT_NAME
+}
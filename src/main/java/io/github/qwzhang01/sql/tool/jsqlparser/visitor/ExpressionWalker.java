@@ -0,0 +1,106 @@
+package io.github.qwzhang01.sql.tool.jsqlparser.visitor;
+
+import io.github.qwzhang01.sql.tool.wrapper.ComplexityGuard;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitor;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.conditional.XorExpression;
+
+import java.util.ArrayDeque;
+import java.util.function.Predicate;
+
+/**
+ * Iterative traversal engine for chains of binary expressions.
+ * Machine-generated filters such as {@code a = ? OR a = ? OR ...} produce AST chains
+ * thousands of levels deep; visiting them recursively costs one or more native stack
+ * frames per level and ends in {@link StackOverflowError}. This walker unrolls every
+ * node accepted by its flatten predicate on an explicit work stack and only dispatches
+ * the remaining operands to the target visitor, so the native stack usage no longer
+ * depends on the chain length.
+ *
+ * <p>Operands are dispatched left to right, in the same order as a recursive visit.
+ * The walker is re-entrant: a dispatched operand may contain a subquery whose own
+ * chains are walked with the same instance. Instances are not thread-safe; visitors
+ * keep one walker per visitor instance.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class ExpressionWalker {
+
+    /**
+     * Flattens AND, OR and XOR chains
+     */
+    public static final Predicate<BinaryExpression> CONDITIONALS =
+            e -> e instanceof AndExpression || e instanceof OrExpression || e instanceof XorExpression;
+
+    /**
+     * Pending operands; shared by nested walks, each of which only pops its own part
+     */
+    private final ArrayDeque<Expression> stack = new ArrayDeque<>();
+
+    /**
+     * Selects the binary expressions that are unrolled instead of dispatched
+     */
+    private final Predicate<BinaryExpression> flatten;
+
+    /**
+     * Constructs a walker unrolling AND, OR and XOR chains
+     */
+    public ExpressionWalker() {
+        this(CONDITIONALS);
+    }
+
+    /**
+     * Constructs a walker unrolling the selected binary expressions
+     *
+     * @param flatten predicate selecting the binary expressions to unroll
+     */
+    public ExpressionWalker(Predicate<BinaryExpression> flatten) {
+        this.flatten = flatten;
+    }
+
+    /**
+     * Checks whether an expression is unrolled by this walker
+     *
+     * @param expression the expression
+     * @return true if the expression is a binary expression selected for unrolling
+     */
+    public boolean isFlattened(Expression expression) {
+        return expression instanceof BinaryExpression binary && flatten.test(binary);
+    }
+
+    /**
+     * Walks an expression, dispatching every operand that is not unrolled to the visitor
+     *
+     * @param root    the expression to walk
+     * @param visitor the visitor receiving the operands
+     * @param guard   complexity guard counting unrolled nodes, may be null
+     * @param <T>     visitor result type
+     */
+    public <T> void walk(Expression root, ExpressionVisitor<T> visitor, ComplexityGuard guard) {
+        int base = stack.size();
+        stack.push(root);
+        try {
+            while (stack.size() > base) {
+                Expression expression = stack.pop();
+                if (expression instanceof BinaryExpression binary && flatten.test(binary)) {
+                    if (guard != null) {
+                        guard.count(1);
+                    }
+                    stack.push(binary.getRightExpression());
+                    stack.push(binary.getLeftExpression());
+                } else if (expression != null) {
+                    expression.accept(visitor, null);
+                }
+            }
+        } finally {
+            // drop operands left behind by an exception
+            while (stack.size() > base) {
+                stack.pop();
+            }
+        }
+    }
+}
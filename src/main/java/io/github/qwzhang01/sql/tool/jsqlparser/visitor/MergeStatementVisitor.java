@@ -3,6 +3,9 @@ package io.github.qwzhang01.sql.tool.jsqlparser.visitor;
 import io.github.qwzhang01.sql.tool.model.SqlTable;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.conditional.XorExpression;
+import net.sf.jsqlparser.expression.operators.relational.ParenthesedExpressionList;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.StatementVisitorAdapter;
 import net.sf.jsqlparser.statement.delete.Delete;
@@ -68,12 +71,7 @@ public class MergeStatementVisitor extends StatementVisitorAdapter<Void> {
         if (where != null) {
             where.accept(new CompleteTableVisitor(tables));
 
-            Expression mainWhere = plainSelect.getWhere();
-            if (mainWhere != null) {
-                plainSelect.setWhere(new AndExpression(mainWhere, where));
-            } else {
-                plainSelect.setWhere(where);
-            }
+            plainSelect.setWhere(and(plainSelect.getWhere(), where));
         }
 
         sql = select.toString();
@@ -99,12 +97,7 @@ public class MergeStatementVisitor extends StatementVisitorAdapter<Void> {
         if (where != null) {
             where.accept(new CompleteTableVisitor(tables));
 
-            Expression mainWhere = delete.getWhere();
-            if (mainWhere != null) {
-                delete.setWhere(new AndExpression(mainWhere, where));
-            } else {
-                delete.setWhere(where);
-            }
+            delete.setWhere(and(delete.getWhere(), where));
         }
         sql = delete.toString();
 
@@ -129,12 +122,7 @@ public class MergeStatementVisitor extends StatementVisitorAdapter<Void> {
         if (where != null) {
             where.accept(new CompleteTableVisitor(tables));
 
-            Expression mainWhere = update.getWhere();
-            if (mainWhere != null) {
-                update.setWhere(new AndExpression(mainWhere, where));
-            } else {
-                update.setWhere(where);
-            }
+            update.setWhere(and(update.getWhere(), where));
         }
         sql = update.toString();
 
@@ -146,6 +134,31 @@ public class MergeStatementVisitor extends StatementVisitorAdapter<Void> {
         throw new UnsupportedOperationException("INSERT statements cannot be merged");
     }
 
+    /**
+     * Combines two conditions with AND. OR and XOR operands are parenthesized so that
+     * the deparsed SQL keeps the intended operator precedence.
+     *
+     * @param left  the existing condition, may be null
+     * @param right the condition to add, may be null
+     * @return the combined condition
+     */
+    public static Expression and(Expression left, Expression right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        return new AndExpression(parenthesize(left), parenthesize(right));
+    }
+
+    private static Expression parenthesize(Expression expression) {
+        if (expression instanceof OrExpression || expression instanceof XorExpression) {
+            return new ParenthesedExpressionList<>(expression);
+        }
+        return expression;
+    }
+
     private boolean hasJoin(List<Join> oldJoins, Join join) {
         if (oldJoins == null || oldJoins.isEmpty()) {
             return false;
@@ -1,6 +1,9 @@
 package io.github.qwzhang01.sql.tool.jsqlparser.visitor;
 
 import io.github.qwzhang01.sql.tool.model.SqlParam;
+import io.github.qwzhang01.sql.tool.model.SqlParamRun;
+import io.github.qwzhang01.sql.tool.monitor.SlowLog;
+import io.github.qwzhang01.sql.tool.wrapper.ComplexityGuard;
 import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
 import net.sf.jsqlparser.expression.*;
 import net.sf.jsqlparser.expression.operators.arithmetic.*;
@@ -43,6 +46,8 @@ import net.sf.jsqlparser.statement.update.Update;
 import net.sf.jsqlparser.statement.update.UpdateSet;
 import net.sf.jsqlparser.statement.upsert.Upsert;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -64,12 +69,53 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
      * Current parameter index being processed (-1 when not processing a parameter)
      */
     private Integer index = -1;
+
+    /**
+     * Number of consecutive placeholders, starting at {@link #index}, bound to the
+     * column currently being resolved
+     */
+    private int runLength = 1;
     
     /**
      * Set of discovered SQL parameters
      */
     private Set<SqlParam> params;
 
+    /**
+     * Discovered parameter runs, null unless the traversal collects runs
+     */
+    private List<SqlParamRun> runs;
+
+    /**
+     * Whether unsupported statement types are recorded instead of throwing
+     */
+    private boolean lenient = false;
+
+    /**
+     * First unsupported type found during the last lenient traversal
+     */
+    private String unsupported;
+
+    /**
+     * Guard enforcing the configured complexity limits on the current traversal
+     */
+    private ComplexityGuard guard = new ComplexityGuard(null);
+
+    /**
+     * Parser whose complexity limits are enforced on traversals
+     */
+    private SqlParser parser = SqlParser.getInstance();
+
+    /**
+     * Iterative walker for AND/OR/XOR chains, keeping native stack usage constant.
+     * Conditionals with a parameter operand keep the pairing logic of
+     * {@link #visitBinaryExpression(BinaryExpression)} and are not unrolled.
+     */
+    private final ExpressionWalker walker = new ExpressionWalker(e -> ExpressionWalker.CONDITIONALS.test(e)
+            && !(e.getLeftExpression() instanceof JdbcParameter)
+            && !(e.getRightExpression() instanceof JdbcParameter)
+            && !(e.getRightExpression() instanceof Function));
+
     /**
      * Finds all JDBC parameters in the given SQL string
      *
@@ -77,20 +123,122 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
      * @return set of SqlParam objects representing all parameters found
      */
     public static Set<SqlParam> find(String sqlStr) {
-        ParamFinder<?> tablesNamesFinder = new ParamFinder<>();
-        return tablesNamesFinder.get(SqlParser.getInstance().parse(sqlStr));
+        Statement statement = SqlParser.getInstance().parseForAnalysis(sqlStr);
+        SlowLog slowLog = SqlParser.getInstance().getSlowLog();
+        long start = slowLog.start();
+        try {
+            return new ParamFinder<>().get(statement);
+        } finally {
+            slowLog.finish(SlowLog.Phase.VISIT, sqlStr, start);
+        }
     }
 
     /**
-     * Throws an exception for unsupported statement types
+     * Reports an unsupported statement type. In the default mode an exception is thrown;
+     * in lenient mode the type is recorded (see {@link #getUnsupported()}) and the
+     * traversal continues, avoiding the cost of creating and unwinding an exception.
      *
      * @param type the unsupported type
      * @param <T>  type parameter
      */
-    private static <T> void throwUnsupported(T type) {
+    private <T> void throwUnsupported(T type) {
+        if (lenient) {
+            if (unsupported == null) {
+                unsupported = type.getClass().getSimpleName();
+            }
+            return;
+        }
         throw new UnsupportedOperationException(String.format("Finding tables from %s is not supported", type.getClass().getSimpleName()));
     }
 
+    /**
+     * Sets whether unsupported statement types are recorded instead of throwing
+     * {@link UnsupportedOperationException}
+     *
+     * @param lenient true to record unsupported types instead of throwing
+     */
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /**
+     * Sets the parser whose complexity limits are enforced on traversals, by default
+     * {@link SqlParser#getInstance()}
+     *
+     * @param parser the parser
+     */
+    public void setParser(SqlParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Gets the first unsupported type encountered by the last lenient traversal
+     *
+     * @return the simple class name of the unsupported type, or null if everything was supported
+     */
+    public String getUnsupported() {
+        return unsupported;
+    }
+
+    /**
+     * Finds all JDBC parameters in the given SQL string as run-length encoded runs
+     *
+     * @param sqlStr the SQL statement to analyze
+     * @return parameter runs ordered by placeholder index
+     */
+    public static List<SqlParamRun> findRuns(String sqlStr) {
+        Statement statement = SqlParser.getInstance().parseForAnalysis(sqlStr);
+        SlowLog slowLog = SqlParser.getInstance().getSlowLog();
+        long start = slowLog.start();
+        try {
+            return new ParamFinder<>().getRuns(statement);
+        } finally {
+            slowLog.finish(SlowLog.Phase.VISIT, sqlStr, start);
+        }
+    }
+
+    /**
+     * Extracts parameters from a parsed SQL statement as run-length encoded runs.
+     * Consecutive placeholders of an IN list are resolved against their column once and
+     * recorded as a single run, so the cost of such a list does not depend on its
+     * length. Adjacent runs bound to the same column are merged.
+     *
+     * @param statement the parsed SQL statement
+     * @return parameter runs ordered by placeholder index
+     */
+    public List<SqlParamRun> getRuns(Statement statement) {
+        params = new HashSet<>();
+        runs = new ArrayList<>();
+        unsupported = null;
+        guard = parser.newGuard();
+        try {
+            statement.accept(this, null);
+            return mergeRuns(runs);
+        } finally {
+            runs = null;
+        }
+    }
+
+    private static List<SqlParamRun> mergeRuns(List<SqlParamRun> runs) {
+        runs.sort(Comparator.comparingInt(SqlParamRun::getFromIndex));
+        List<SqlParamRun> merged = new ArrayList<>(runs.size());
+        SqlParamRun last = null;
+        for (SqlParamRun run : runs) {
+            if (last != null && last.contains(run.getFromIndex())) {
+                // the same placeholder resolved twice, keep the first binding
+                continue;
+            }
+            if (last != null && last.isContinuedBy(run)) {
+                last = new SqlParamRun(last.getColumn(), last.getTable(), last.getFromIndex(), run.getToIndex());
+                merged.set(merged.size() - 1, last);
+            } else {
+                last = run;
+                merged.add(run);
+            }
+        }
+        return merged;
+    }
+
     /**
      * Extracts parameters from a parsed SQL statement
      *
@@ -99,6 +247,8 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
      */
     public Set<SqlParam> get(Statement statement) {
         params = new HashSet<>();
+        unsupported = null;
+        guard = parser.newGuard();
         statement.accept(this, null);
         return params;
     }
@@ -228,7 +378,11 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
 
     @Override
     public <S> Void visit(AndExpression andExpression, S context) {
-        visitBinaryExpression(andExpression);
+        if (walker.isFlattened(andExpression)) {
+            walker.walk(andExpression, this, guard);
+        } else {
+            visitBinaryExpression(andExpression);
+        }
         return null;
     }
 
@@ -255,7 +409,13 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
             if (tableColumn.getTable() != null) {
                 table = tableColumn.getTable().getName();
             }
-            params.add(new SqlParam(tableColumn.getColumnName(), table, index));
+            if (runs != null) {
+                runs.add(new SqlParamRun(tableColumn.getColumnName(), table, index, index + runLength - 1));
+            } else {
+                for (int i = 0; i < runLength; i++) {
+                    params.add(new SqlParam(tableColumn.getColumnName(), table, index + i));
+                }
+            }
         }
         return null;
     }
@@ -429,13 +589,21 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
 
     @Override
     public <S> Void visit(OrExpression orExpression, S context) {
-        visitBinaryExpression(orExpression);
+        if (walker.isFlattened(orExpression)) {
+            walker.walk(orExpression, this, guard);
+        } else {
+            visitBinaryExpression(orExpression);
+        }
         return null;
     }
 
     @Override
     public <S> Void visit(XorExpression xorExpression, S context) {
-        visitBinaryExpression(xorExpression);
+        if (walker.isFlattened(xorExpression)) {
+            walker.walk(xorExpression, this, guard);
+        } else {
+            visitBinaryExpression(xorExpression);
+        }
         return null;
     }
 
@@ -476,32 +644,37 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
     }
 
     private void visitBinaryExpression(BinaryExpression binaryExpression) {
-        Expression left = binaryExpression.getLeftExpression();
-        Expression right = binaryExpression.getRightExpression();
-        if (left instanceof JdbcParameter leftJdbcParameter) {
-            index = leftJdbcParameter.getIndex();
-            right.accept(this, null);
-            index = -1;
-        } else {
-            left.accept(this, null);
-        }
-        if (right instanceof JdbcParameter rightJdbcParameter) {
-            index = rightJdbcParameter.getIndex();
-            left.accept(this, null);
-            index = -1;
-        } else if (right instanceof Function fun) {
-            ExpressionList<?> parameters = fun.getParameters();
-            if (parameters != null && !parameters.isEmpty()) {
-                for (Expression parameter : parameters) {
-                    if (parameter instanceof JdbcParameter jdbcParameter) {
-                        index = jdbcParameter.getIndex();
-                        left.accept(this, null);
-                        index = -1;
+        guard.enter();
+        try {
+            Expression left = binaryExpression.getLeftExpression();
+            Expression right = binaryExpression.getRightExpression();
+            if (left instanceof JdbcParameter leftJdbcParameter) {
+                index = leftJdbcParameter.getIndex();
+                right.accept(this, null);
+                index = -1;
+            } else {
+                left.accept(this, null);
+            }
+            if (right instanceof JdbcParameter rightJdbcParameter) {
+                index = rightJdbcParameter.getIndex();
+                left.accept(this, null);
+                index = -1;
+            } else if (right instanceof Function fun) {
+                ExpressionList<?> parameters = fun.getParameters();
+                if (parameters != null && !parameters.isEmpty()) {
+                    for (Expression parameter : parameters) {
+                        if (parameter instanceof JdbcParameter jdbcParameter) {
+                            index = jdbcParameter.getIndex();
+                            left.accept(this, null);
+                            index = -1;
+                        }
                     }
                 }
+            } else {
+                right.accept(this, null);
             }
-        } else {
-            right.accept(this, null);
+        } finally {
+            guard.exit();
         }
     }
 
@@ -521,6 +694,28 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
         }
     }
 
+    /**
+     * Finds the end of a run of placeholders with consecutive indexes
+     *
+     * @param expressions the list expressions
+     * @param start       position of the first placeholder of the run
+     * @return position after the last placeholder of the run
+     */
+    private static int runEnd(List<Expression> expressions, int start) {
+        Integer first = ((JdbcParameter) expressions.get(start)).getIndex();
+        if (first == null) {
+            return start + 1;
+        }
+        int end = start + 1;
+        while (end < expressions.size()
+                && expressions.get(end) instanceof JdbcParameter next
+                && next.getIndex() != null
+                && next.getIndex() == first + (end - start)) {
+            end++;
+        }
+        return end;
+    }
+
     private void visitBetweenExpression(Between between) {
         Expression left = between.getLeftExpression();
         if (between.getBetweenExpressionStart() instanceof JdbcParameter jdbcParameter) {
@@ -560,11 +755,19 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
 
         if (right instanceof ExpressionList exprList) {
             List<Expression> expressions = exprList.getExpressions();
-            for (Expression expr : expressions) {
+            guard.count(expressions.size());
+            int size = expressions.size();
+            for (int i = 0; i < size; i++) {
+                Expression expr = expressions.get(i);
                 if (expr instanceof JdbcParameter jdbcParameter) {
+                    // resolve the left column once for every run of consecutive placeholders
+                    int end = runEnd(expressions, i);
                     index = jdbcParameter.getIndex();
+                    runLength = end - i;
                     left.accept(this, null);
+                    runLength = 1;
                     index = -1;
+                    i = end - 1;
                 } else {
                     expr.accept(this, null);
                 }
@@ -576,6 +779,7 @@ public class ParamFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
 
     @Override
     public <S> Void visit(ExpressionList<?> expressionList, S context) {
+        guard.count(expressionList.size());
         for (Expression expression : expressionList) {
             expression.accept(this, context);
         }
@@ -0,0 +1,329 @@
+package io.github.qwzhang01.sql.tool.jsqlparser.visitor;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.StatementVisitorAdapter;
+import net.sf.jsqlparser.statement.delete.Delete;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.select.*;
+import net.sf.jsqlparser.statement.update.Update;
+import net.sf.jsqlparser.statement.update.UpdateSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Base visitor for injecting conditions into every query block of a statement.
+ * Unlike {@link MergeStatementVisitor}, which only touches the outermost plain select,
+ * this visitor walks UNION branches, derived tables, CTEs, lateral selects and
+ * subqueries in expressions (IN, EXISTS, scalar and ANY/ALL), and asks
+ * {@link #addConditions(List, Table, Table)} for the conditions of every physical table
+ * it finds, qualified by the alias that is visible in that table's own scope.
+ *
+ * <p>Conditions for tables in the FROM clause and in inner joins are appended to the
+ * WHERE clause of their query block. Conditions for the joined table of a LEFT or FULL
+ * join go into that join's ON clause so that outer rows are preserved. For a RIGHT join
+ * the conditions collected so far move into the ON clause and the joined table's
+ * condition goes to WHERE.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public abstract class ScopedConditionVisitor extends StatementVisitorAdapter<Void> {
+
+    /**
+     * Lower-cased, unquoted names of CTEs seen so far; they are not physical tables
+     */
+    private final Set<String> withNames = new HashSet<>();
+
+    /**
+     * Visitor used to find subqueries nested inside expressions
+     */
+    private final SubSelectFinder subSelectFinder = new SubSelectFinder();
+
+    /**
+     * Number of conditions injected by the last visit
+     */
+    private int injected;
+
+    private String sql;
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getInjected() {
+        return injected;
+    }
+
+    @Override
+    public <S> Void visit(Select select, S content) {
+        processSelect(select);
+        sql = select.toString();
+        return null;
+    }
+
+    @Override
+    public <S> Void visit(Update update, S content) {
+        processWithItems(update.getWithItemsList());
+        List<Expression> conditions = new ArrayList<>();
+        addCondition(conditions, update.getTable());
+        if (update.getStartJoins() != null) {
+            conditions = processJoins(update.getStartJoins(), conditions);
+        }
+        if (update.getFromItem() != null) {
+            processFromItem(update.getFromItem(), conditions);
+        }
+        if (update.getJoins() != null) {
+            conditions = processJoins(update.getJoins(), conditions);
+        }
+        if (update.getUpdateSets() != null) {
+            for (UpdateSet updateSet : update.getUpdateSets()) {
+                for (Expression value : updateSet.getValues()) {
+                    processExpression(value);
+                }
+            }
+        }
+        processExpression(update.getWhere());
+        update.setWhere(appendConditions(update.getWhere(), conditions));
+        sql = update.toString();
+        return null;
+    }
+
+    @Override
+    public <S> Void visit(Delete delete, S content) {
+        processWithItems(delete.getWithItemsList());
+        List<Expression> conditions = new ArrayList<>();
+        addCondition(conditions, delete.getTable());
+        if (delete.getUsingList() != null) {
+            for (Table using : delete.getUsingList()) {
+                addCondition(conditions, using);
+            }
+        }
+        if (delete.getJoins() != null) {
+            conditions = processJoins(delete.getJoins(), conditions);
+        }
+        processExpression(delete.getWhere());
+        delete.setWhere(appendConditions(delete.getWhere(), conditions));
+        sql = delete.toString();
+        return null;
+    }
+
+    @Override
+    public <S> Void visit(Insert insert, S content) {
+        processWithItems(insert.getWithItemsList());
+        if (insert.getSelect() != null) {
+            processSelect(insert.getSelect());
+        }
+        sql = insert.toString();
+        return null;
+    }
+
+    /**
+     * Processes any kind of select body
+     *
+     * @param select the select to process
+     */
+    private void processSelect(Select select) {
+        if (select == null) {
+            return;
+        }
+        processWithItems(select.getWithItemsList());
+        if (select instanceof PlainSelect plainSelect) {
+            processPlainSelect(plainSelect);
+        } else if (select instanceof SetOperationList list) {
+            for (Select branch : list.getSelects()) {
+                processSelect(branch);
+            }
+        } else if (select instanceof ParenthesedSelect parenthesedSelect) {
+            processSelect(parenthesedSelect.getSelect());
+        }
+    }
+
+    private void processWithItems(List<WithItem<?>> withItems) {
+        if (withItems == null) {
+            return;
+        }
+        for (WithItem<?> withItem : withItems) {
+            if (withItem.getAlias() != null) {
+                withNames.add(normalize(withItem.getAlias().getName()));
+            }
+            if (withItem.getSelect() != null) {
+                processSelect(withItem.getSelect());
+            }
+        }
+    }
+
+    private void processPlainSelect(PlainSelect plainSelect) {
+        if (plainSelect.getSelectItems() != null) {
+            for (SelectItem<?> item : plainSelect.getSelectItems()) {
+                processExpression(item.getExpression());
+            }
+        }
+
+        List<Expression> conditions = new ArrayList<>();
+        if (plainSelect.getFromItem() != null) {
+            processFromItem(plainSelect.getFromItem(), conditions);
+        }
+        if (plainSelect.getJoins() != null) {
+            conditions = processJoins(plainSelect.getJoins(), conditions);
+        }
+
+        processExpression(plainSelect.getWhere());
+        if (plainSelect.getGroupBy() != null) {
+            processExpression(plainSelect.getGroupBy().getGroupByExpressionList());
+        }
+        processExpression(plainSelect.getHaving());
+        if (plainSelect.getOrderByElements() != null) {
+            for (OrderByElement element : plainSelect.getOrderByElements()) {
+                processExpression(element.getExpression());
+            }
+        }
+        plainSelect.setWhere(appendConditions(plainSelect.getWhere(), conditions));
+    }
+
+    /**
+     * Processes a FROM item, collecting the tenant conditions of the physical tables
+     * it exposes into the given list
+     *
+     * @param fromItem   the FROM item
+     * @param conditions list receiving conditions for the enclosing WHERE clause
+     */
+    private void processFromItem(FromItem fromItem, List<Expression> conditions) {
+        if (fromItem instanceof Table table) {
+            addCondition(conditions, table);
+        } else if (fromItem instanceof ParenthesedSelect select) {
+            processSelect(select);
+        } else if (fromItem instanceof ParenthesedFromItem parenthesed) {
+            processFromItem(parenthesed.getFromItem(), conditions);
+            if (parenthesed.getJoins() != null) {
+                List<Expression> joined = processJoins(parenthesed.getJoins(), conditions);
+                if (joined != conditions) {
+                    conditions.clear();
+                    conditions.addAll(joined);
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes JOIN clauses, placing tenant conditions according to the join type
+     *
+     * @param joins      the joins to process
+     * @param conditions conditions collected for the WHERE clause so far
+     * @return conditions for the WHERE clause after processing the joins
+     */
+    private List<Expression> processJoins(List<Join> joins, List<Expression> conditions) {
+        for (Join join : joins) {
+            for (Expression on : join.getOnExpressions()) {
+                processExpression(on);
+            }
+
+            List<Expression> joinConditions = new ArrayList<>();
+            processFromItem(join.getFromItem(), joinConditions);
+            if (joinConditions.isEmpty()) {
+                continue;
+            }
+
+            boolean usesOn = !join.getOnExpressions().isEmpty()
+                    && (join.getUsingColumns() == null || join.getUsingColumns().isEmpty());
+            if (usesOn && join.isRight()) {
+                addToOn(join, conditions);
+                conditions = joinConditions;
+            } else if (usesOn && (join.isLeft() || join.isFull())) {
+                addToOn(join, joinConditions);
+            } else {
+                conditions.addAll(joinConditions);
+            }
+        }
+        return conditions;
+    }
+
+    private void addToOn(Join join, List<Expression> conditions) {
+        if (conditions.isEmpty()) {
+            return;
+        }
+        List<Expression> ons = new ArrayList<>(join.getOnExpressions());
+        Expression last = ons.remove(ons.size() - 1);
+        ons.add(appendConditions(last, conditions));
+        join.setOnExpressions(ons);
+    }
+
+    /**
+     * Adds the conditions of a table to the list unless it is not a physical table
+     */
+    private void addCondition(List<Expression> conditions, Table table) {
+        if (table == null || table.getName() == null) {
+            return;
+        }
+        if (table.getSchemaName() == null && withNames.contains(normalize(table.getName()))) {
+            return;
+        }
+        Table qualifier = table.getAlias() != null
+                ? new Table(table.getAlias().getName())
+                : new Table(table.getFullyQualifiedName());
+        int before = conditions.size();
+        addConditions(conditions, table, qualifier);
+        injected += conditions.size() - before;
+    }
+
+    /**
+     * Adds the conditions for a physical table occurrence
+     *
+     * @param conditions list receiving the conditions
+     * @param table      the table as written in the statement
+     * @param qualifier  the alias of the table, or its name if it has no alias
+     */
+    protected abstract void addConditions(List<Expression> conditions, Table table, Table qualifier);
+
+    /**
+     * Finds and processes subqueries nested in an expression
+     */
+    private void processExpression(Expression expression) {
+        if (expression != null) {
+            expression.accept(subSelectFinder, null);
+        }
+    }
+
+    /**
+     * ANDs the conditions onto an existing expression
+     *
+     * @param where      the existing condition, may be null
+     * @param conditions the conditions to add
+     * @return the combined condition
+     */
+    private static Expression appendConditions(Expression where, Collection<Expression> conditions) {
+        Expression result = where;
+        for (Expression condition : conditions) {
+            result = MergeStatementVisitor.and(result, condition);
+        }
+        return result;
+    }
+
+    protected static String normalize(String name) {
+        return name.replace("`", "").replace("\"", "").replace("[", "").replace("]", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Expression visitor that hands every nested select to {@link #processSelect(Select)}
+     */
+    private class SubSelectFinder extends ExpressionVisitorAdapter<Void> {
+
+        @Override
+        public <S> Void visit(ParenthesedSelect select, S context) {
+            processSelect(select);
+            return null;
+        }
+
+        @Override
+        public <S> Void visit(Select select, S context) {
+            processSelect(select);
+            return null;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package io.github.qwzhang01.sql.tool.jsqlparser.visitor;
 
 
 import io.github.qwzhang01.sql.tool.model.SqlTable;
+import io.github.qwzhang01.sql.tool.monitor.SlowLog;
+import io.github.qwzhang01.sql.tool.wrapper.ComplexityGuard;
 import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
 import io.github.qwzhang01.sql.tool.wrapper.TableParser;
 import net.sf.jsqlparser.expression.*;
@@ -85,6 +87,31 @@ public class TableFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
      */
     private Set<SqlTable> otherItemNames;
 
+    /**
+     * Whether unsupported statement types are recorded instead of throwing
+     */
+    private boolean lenient = false;
+
+    /**
+     * First unsupported type found during the last lenient traversal
+     */
+    private String unsupported;
+
+    /**
+     * Guard enforcing the configured complexity limits on the current traversal
+     */
+    private ComplexityGuard guard = new ComplexityGuard(null);
+
+    /**
+     * Parser whose complexity limits are enforced on traversals
+     */
+    private SqlParser parser = SqlParser.getInstance();
+
+    /**
+     * Iterative walker for AND/OR/XOR chains, keeping native stack usage constant
+     */
+    private final ExpressionWalker walker = new ExpressionWalker();
+
     /**
      * Finds all actual tables in a SQL statement (excludes aliases and subquery names)
      *
@@ -92,8 +119,14 @@ public class TableFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
      * @return set of SqlTable objects representing actual tables
      */
     public static Set<SqlTable> findTables(String sqlStr) {
-        TableFinder<?> tablesNamesFinder = new TableFinder<>();
-        return tablesNamesFinder.getTables(SqlParser.getInstance().parse(sqlStr));
+        Statement statement = SqlParser.getInstance().parseForAnalysis(sqlStr);
+        SlowLog slowLog = SqlParser.getInstance().getSlowLog();
+        long start = slowLog.start();
+        try {
+            return new TableFinder<>().getTables(statement);
+        } finally {
+            slowLog.finish(SlowLog.Phase.VISIT, sqlStr, start);
+        }
     }
 
     /**
@@ -103,8 +136,14 @@ public class TableFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
      * @return set of SqlTable objects representing all table sources
      */
     public static Set<SqlTable> findTablesOrOtherSources(String sqlStr) {
-        TableFinder<?> tablesNamesFinder = new TableFinder<>();
-        return tablesNamesFinder.getTablesOrOtherSources(SqlParser.getInstance().parse(sqlStr));
+        Statement statement = SqlParser.getInstance().parseForAnalysis(sqlStr);
+        SlowLog slowLog = SqlParser.getInstance().getSlowLog();
+        long start = slowLog.start();
+        try {
+            return new TableFinder<>().getTablesOrOtherSources(statement);
+        } finally {
+            slowLog.finish(SlowLog.Phase.VISIT, sqlStr, start);
+        }
     }
 
     /**
@@ -119,15 +158,52 @@ public class TableFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
     }
 
     /**
-     * Throws an exception for unsupported statement types
+     * Reports an unsupported statement type. In the default mode an exception is thrown;
+     * in lenient mode the type is recorded (see {@link #getUnsupported()}) and the
+     * traversal continues, avoiding the cost of creating and unwinding an exception.
      *
      * @param type the unsupported type
      * @param <T>  type parameter
      */
-    private static <T> void throwUnsupported(T type) {
+    private <T> void throwUnsupported(T type) {
+        if (lenient) {
+            if (unsupported == null) {
+                unsupported = type.getClass().getSimpleName();
+            }
+            return;
+        }
         throw new UnsupportedOperationException(String.format("Finding tables from %s is not supported", type.getClass().getSimpleName()));
     }
 
+    /**
+     * Sets whether unsupported statement types are recorded instead of throwing
+     * {@link UnsupportedOperationException}
+     *
+     * @param lenient true to record unsupported types instead of throwing
+     */
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /**
+     * Sets the parser whose complexity limits are enforced on traversals, by default
+     * {@link SqlParser#getInstance()}
+     *
+     * @param parser the parser
+     */
+    public void setParser(SqlParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Gets the first unsupported type encountered by the last lenient traversal
+     *
+     * @return the simple class name of the unsupported type, or null if everything was supported
+     */
+    public String getUnsupported() {
+        return unsupported;
+    }
+
     public Set<SqlTable> getTables(Statement statement) {
         init(false);
         statement.accept(this, null);
@@ -310,7 +386,7 @@ public class TableFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
 
     @Override
     public <S> Void visit(AndExpression andExpression, S context) {
-        visitBinaryExpression(andExpression);
+        walker.walk(andExpression, this, guard);
         return null;
     }
 
@@ -507,13 +583,13 @@ public class TableFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
 
     @Override
     public <S> Void visit(OrExpression orExpression, S context) {
-        visitBinaryExpression(orExpression);
+        walker.walk(orExpression, this, guard);
         return null;
     }
 
     @Override
     public <S> Void visit(XorExpression xorExpression, S context) {
-        visitBinaryExpression(xorExpression);
+        walker.walk(xorExpression, this, guard);
         return null;
     }
 
@@ -554,12 +630,18 @@ public class TableFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
     }
 
     private void visitBinaryExpression(BinaryExpression binaryExpression) {
-        binaryExpression.getLeftExpression().accept(this, null);
-        binaryExpression.getRightExpression().accept(this, null);
+        guard.enter();
+        try {
+            binaryExpression.getLeftExpression().accept(this, null);
+            binaryExpression.getRightExpression().accept(this, null);
+        } finally {
+            guard.exit();
+        }
     }
 
     @Override
     public <S> Void visit(ExpressionList<?> expressionList, S context) {
+        guard.count(expressionList.size());
         for (Expression expression : expressionList) {
             expression.accept(this, context);
         }
@@ -762,6 +844,8 @@ public class TableFinder<Void> implements SelectVisitor<Void>, FromItemVisitor<V
     protected void init(boolean allowColumnProcessing) {
         otherItemNames = new HashSet<>();
         tables = new HashSet<>();
+        unsupported = null;
+        guard = parser.newGuard();
         this.allowColumnProcessing = allowColumnProcessing;
     }
 
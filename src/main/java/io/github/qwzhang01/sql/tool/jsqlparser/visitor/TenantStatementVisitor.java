@@ -0,0 +1,72 @@
+package io.github.qwzhang01.sql.tool.jsqlparser.visitor;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Visitor for injecting a tenant condition into every query block of a statement.
+ * Adds {@code alias.tenant_column = value} for every physical table, see
+ * {@link ScopedConditionVisitor} for the query blocks visited and the placement of the
+ * conditions.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class TenantStatementVisitor extends ScopedConditionVisitor {
+
+    /**
+     * Name of the tenant column
+     */
+    private final String tenantColumn;
+
+    /**
+     * Right-hand side of the tenant condition (e.g. a JDBC parameter)
+     */
+    private final Expression tenantValue;
+
+    /**
+     * Lower-cased, unquoted names of tables that never receive a tenant condition
+     */
+    private final Set<String> ignoredTables;
+
+    /**
+     * Constructs a tenant visitor
+     *
+     * @param tenantColumn  the tenant column name, e.g. "tenant_id"
+     * @param tenantValue   the value expression compared with the tenant column
+     * @param ignoredTables table names that must not receive a tenant condition (may be null)
+     */
+    public TenantStatementVisitor(String tenantColumn, Expression tenantValue, Set<String> ignoredTables) {
+        this.tenantColumn = tenantColumn;
+        this.tenantValue = tenantValue;
+        this.ignoredTables = new HashSet<>();
+        if (ignoredTables != null) {
+            for (String table : ignoredTables) {
+                this.ignoredTables.add(normalize(table));
+            }
+        }
+    }
+
+    /**
+     * Checks whether a table receives the tenant condition
+     *
+     * @param tableName the table name, possibly quoted
+     * @return false if the table is ignored
+     */
+    public boolean isTenantTable(String tableName) {
+        return !ignoredTables.contains(normalize(tableName));
+    }
+
+    @Override
+    protected void addConditions(List<Expression> conditions, Table table, Table qualifier) {
+        if (isTenantTable(table.getName())) {
+            conditions.add(new EqualsTo(new Column(qualifier, tenantColumn), tenantValue));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.qwzhang01.sql.tool.model;
+
+/**
+ * Result of a non-throwing SQL analysis.
+ * Either holds the analysis value, or reports the statement type that is not
+ * supported by the analysis. Used by the {@code tryXxx} methods of
+ * {@link io.github.qwzhang01.sql.tool.helper.ParserHelper} so that mixed DDL/DML
+ * workloads can be processed without exceptions for unsupported statements.
+ *
+ * @param <T> type of the analysis value
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class AnalysisResult<T> {
+
+    /**
+     * The analysis value, null if unsupported
+     */
+    private final T value;
+
+    /**
+     * Simple class name of the unsupported statement type, null if supported
+     */
+    private final String unsupportedType;
+
+    private AnalysisResult(T value, String unsupportedType) {
+        this.value = value;
+        this.unsupportedType = unsupportedType;
+    }
+
+    /**
+     * Creates a successful result
+     *
+     * @param value the analysis value
+     * @param <T>   type of the analysis value
+     * @return the result
+     */
+    public static <T> AnalysisResult<T> supported(T value) {
+        return new AnalysisResult<>(value, null);
+    }
+
+    /**
+     * Creates a result for an unsupported statement type
+     *
+     * @param unsupportedType simple class name of the unsupported type
+     * @param <T>             type of the analysis value
+     * @return the result
+     */
+    public static <T> AnalysisResult<T> unsupported(String unsupportedType) {
+        return new AnalysisResult<>(null, unsupportedType);
+    }
+
+    public boolean isSupported() {
+        return unsupportedType == null;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public String getUnsupportedType() {
+        return unsupportedType;
+    }
+
+    /**
+     * Gets a description of why the analysis is unsupported
+     *
+     * @return the message, or null if supported
+     */
+    public String getMessage() {
+        return unsupportedType == null ? null : String.format("Analysis of %s is not supported", unsupportedType);
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisResult{" +
+                "value=" + value +
+                ", unsupportedType='" + unsupportedType + '\'' +
+                '}';
+    }
+}
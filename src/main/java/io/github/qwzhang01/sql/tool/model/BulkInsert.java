@@ -0,0 +1,127 @@
+package io.github.qwzhang01.sql.tool.model;
+
+import java.util.List;
+
+/**
+ * Compact description of a multi-row {@code INSERT ... VALUES} statement in which every
+ * row binds its placeholders to the same columns. The parameter of any JDBC index is
+ * computed from the row template, so a statement with 50,000 rows is described without
+ * one object per placeholder.
+ *
+ * <p>Placeholder indexes are 1-based and run row by row: with {@code k} placeholders
+ * per row, row {@code r} (0-based) uses the indexes {@code r * k + 1} to
+ * {@code r * k + k}.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class BulkInsert {
+    /**
+     * The target table name, as written in the statement
+     */
+    private final String table;
+
+    /**
+     * The column list of the statement
+     */
+    private final List<String> columns;
+
+    /**
+     * Columns bound to the placeholders of one row, in placeholder order
+     */
+    private final List<String> paramColumns;
+
+    /**
+     * Number of value rows
+     */
+    private final int rowCount;
+
+    public BulkInsert(String table, List<String> columns, List<String> paramColumns, int rowCount) {
+        this.table = table;
+        this.columns = List.copyOf(columns);
+        this.paramColumns = List.copyOf(paramColumns);
+        this.rowCount = rowCount;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<String> getParamColumns() {
+        return paramColumns;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of placeholders in each row
+     *
+     * @return placeholders per row
+     */
+    public int getParamsPerRow() {
+        return paramColumns.size();
+    }
+
+    /**
+     * Returns the total number of placeholders in the statement
+     *
+     * @return placeholders of all rows
+     */
+    public long getParamCount() {
+        return (long) paramColumns.size() * rowCount;
+    }
+
+    /**
+     * Returns the row (0-based) a placeholder belongs to
+     *
+     * @param index the 1-based placeholder index
+     * @return the row of the placeholder
+     */
+    public int getRow(int index) {
+        checkIndex(index);
+        return (index - 1) / paramColumns.size();
+    }
+
+    /**
+     * Returns the column a placeholder is bound to
+     *
+     * @param index the 1-based placeholder index
+     * @return the column name
+     */
+    public String getColumn(int index) {
+        checkIndex(index);
+        return paramColumns.get((index - 1) % paramColumns.size());
+    }
+
+    /**
+     * Returns the parameter description of a placeholder
+     *
+     * @param index the 1-based placeholder index
+     * @return the parameter, associated with the column and the target table
+     */
+    public SqlParam getParam(int index) {
+        return new SqlParam(getColumn(index), table, index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 1 || index > getParamCount()) {
+            throw new IndexOutOfBoundsException("Parameter index " + index + " out of range 1.." + getParamCount());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BulkInsert{" +
+                "table='" + table + '\'' +
+                ", columns=" + columns +
+                ", paramColumns=" + paramColumns +
+                ", rowCount=" + rowCount +
+                '}';
+    }
+}
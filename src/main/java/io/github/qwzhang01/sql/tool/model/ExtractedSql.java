@@ -0,0 +1,67 @@
+package io.github.qwzhang01.sql.tool.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL statement whose named placeholders have been converted to JDBC {@code ?}
+ * placeholders, together with the original placeholder names.
+ * The names are kept in placeholder order: the name of the JDBC parameter with index
+ * {@code i} (1-based) is {@code getNames().get(i - 1)}. Placeholders that already were
+ * {@code ?} in the original statement have a null name.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class ExtractedSql {
+    /**
+     * The SQL statement with JDBC placeholders
+     */
+    private final String sql;
+
+    /**
+     * Placeholder names in JDBC parameter order
+     */
+    private final List<String> names;
+
+    public ExtractedSql(String sql, List<String> names) {
+        this.sql = sql;
+        this.names = Collections.unmodifiableList(names);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Returns the number of JDBC placeholders in the statement
+     *
+     * @return the placeholder count
+     */
+    public int getParamCount() {
+        return names.size();
+    }
+
+    /**
+     * Returns the original name of a JDBC placeholder
+     *
+     * @param index the 1-based JDBC parameter index
+     * @return the placeholder name, or null if the placeholder was a plain {@code ?}
+     * or the index is out of range
+     */
+    public String getName(int index) {
+        return index < 1 || index > names.size() ? null : names.get(index - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractedSql{" +
+                "sql='" + sql + '\'' +
+                ", names=" + names +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.qwzhang01.sql.tool.model;
+
+/**
+ * Represents a row-level data permission rule bound to a table.
+ * The condition is a SQL boolean expression; columns qualified with the rule's table
+ * name, as well as unqualified columns, are resolved to the alias the table has in
+ * the statement the rule is applied to.
+ *
+ * <p>Example: table {@code users}, condition {@code dept_id IN (1, 2)} turns
+ * {@code SELECT * FROM users u} into {@code SELECT * FROM users u WHERE u.dept_id IN (1, 2)}.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class PermissionRule {
+
+    /**
+     * The table the rule applies to
+     */
+    private String table;
+
+    /**
+     * The SQL condition to add for the table
+     */
+    private String condition;
+
+    public PermissionRule() {
+    }
+
+    public PermissionRule(String table, String condition) {
+        this.table = table;
+        this.condition = condition;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public void setCondition(String condition) {
+        this.condition = condition;
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionRule{" +
+                "table='" + table + '\'' +
+                ", condition='" + condition + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.qwzhang01.sql.tool.model;
+
+import java.util.List;
+
+/**
+ * Tables and parameters of one SQL statement, found with a single parse.
+ * Instances are shared by the analysis cache of
+ * {@link io.github.qwzhang01.sql.tool.helper.ParserHelper#analyze(String)}; the lists
+ * are unmodifiable and the contained objects must not be modified either.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SqlAnalysis {
+    /**
+     * Tables and other sources of the statement
+     */
+    private final List<SqlTable> tables;
+
+    /**
+     * JDBC parameters of the statement
+     */
+    private final List<SqlParam> params;
+
+    /**
+     * Simple class name of the first unsupported statement part, null if fully supported
+     */
+    private final String unsupportedType;
+
+    public SqlAnalysis(List<SqlTable> tables, List<SqlParam> params, String unsupportedType) {
+        this.tables = List.copyOf(tables);
+        this.params = List.copyOf(params);
+        this.unsupportedType = unsupportedType;
+    }
+
+    public List<SqlTable> getTables() {
+        return tables;
+    }
+
+    public List<SqlParam> getParams() {
+        return params;
+    }
+
+    public String getUnsupportedType() {
+        return unsupportedType;
+    }
+
+    /**
+     * Checks whether the statement could be analyzed completely
+     *
+     * @return true if no unsupported statement part was found
+     */
+    public boolean isSupported() {
+        return unsupportedType == null;
+    }
+
+    /**
+     * Estimates the retained heap size of this analysis, for weighing cache entries
+     *
+     * @return the estimated size in bytes
+     */
+    public int getEstimatedSize() {
+        int size = 64 + 8 * (tables.size() + params.size());
+        for (SqlTable table : tables) {
+            size += estimateSize(table);
+        }
+        for (SqlParam param : params) {
+            size += 40 + stringSize(param.getColumn()) + stringSize(param.getTable()) + stringSize(param.getName());
+        }
+        return size;
+    }
+
+    private static int estimateSize(SqlTable table) {
+        int size = 32 + stringSize(table.getName()) + stringSize(table.getAlias());
+        if (table.getChildren() != null) {
+            size += 48;
+            for (SqlTable child : table.getChildren()) {
+                size += 40 + estimateSize(child);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the heap size of a string, assuming compact Latin-1 storage
+     */
+    public static int stringSize(String text) {
+        return text == null ? 0 : 40 + text.length();
+    }
+
+    @Override
+    public String toString() {
+        return "SqlAnalysis{" +
+                "tables=" + tables +
+                ", params=" + params +
+                (unsupportedType != null ? ", unsupportedType='" + unsupportedType + '\'' : "") +
+                '}';
+    }
+}
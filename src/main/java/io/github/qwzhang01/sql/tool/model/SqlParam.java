@@ -26,6 +26,11 @@ public class SqlParam {
      */
     private Integer index;
 
+    /**
+     * The original placeholder name, e.g. "user.id" for #{user.id}, null for plain ?
+     */
+    private String name;
+
     public SqlParam() {
     }
 
@@ -35,6 +40,11 @@ public class SqlParam {
         this.index = index;
     }
 
+    public SqlParam(String column, String table, Integer index, String name) {
+        this(column, table, index);
+        this.name = name;
+    }
+
     public String getColumn() {
         return column;
     }
@@ -47,6 +57,10 @@ public class SqlParam {
         return index;
     }
 
+    public String getName() {
+        return name;
+    }
+
 
     @Override
     public int hashCode() {
@@ -71,6 +85,7 @@ public class SqlParam {
                 "index=" + index +
                 ", column='" + getColumn() + '\'' +
                 ", table='" + getTable() + '\'' +
+                (name != null ? ", name='" + name + '\'' : "") +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package io.github.qwzhang01.sql.tool.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Run-length representation of consecutive SQL parameters bound to the same column.
+ * A list such as {@code id IN (?, ?, ..., ?)} with 20,000 placeholders is described by
+ * a single run "indexes 5..20004 → orders.id" instead of one {@link SqlParam} per
+ * placeholder. A single parameter is a run of length one.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SqlParamRun {
+    /**
+     * The column name associated with the parameters
+     */
+    private final String column;
+
+    /**
+     * The table name associated with the parameters
+     */
+    private final String table;
+
+    /**
+     * Index of the first placeholder of the run (inclusive)
+     */
+    private final int fromIndex;
+
+    /**
+     * Index of the last placeholder of the run (inclusive)
+     */
+    private final int toIndex;
+
+    public SqlParamRun(String column, String table, int fromIndex, int toIndex) {
+        if (toIndex < fromIndex) {
+            throw new IllegalArgumentException("Invalid parameter run: " + fromIndex + ".." + toIndex);
+        }
+        this.column = column;
+        this.table = table;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public int getFromIndex() {
+        return fromIndex;
+    }
+
+    public int getToIndex() {
+        return toIndex;
+    }
+
+    /**
+     * Returns the number of placeholders in this run
+     *
+     * @return the run length
+     */
+    public int size() {
+        return toIndex - fromIndex + 1;
+    }
+
+    /**
+     * Checks whether the placeholder with the given index belongs to this run
+     *
+     * @param index the placeholder index
+     * @return true if the index lies within the run
+     */
+    public boolean contains(int index) {
+        return index >= fromIndex && index <= toIndex;
+    }
+
+    /**
+     * Checks whether another run continues this one, i.e. targets the same column and
+     * starts right after this run ends
+     *
+     * @param next the following run
+     * @return true if both runs can be merged
+     */
+    public boolean isContinuedBy(SqlParamRun next) {
+        return next.fromIndex == toIndex + 1
+                && Objects.equals(column, next.column)
+                && Objects.equals(table, next.table);
+    }
+
+    /**
+     * Expands this run into one {@link SqlParam} per placeholder
+     *
+     * @return the parameters of this run
+     */
+    public List<SqlParam> toParams() {
+        List<SqlParam> params = new ArrayList<>(size());
+        for (int i = fromIndex; i <= toIndex; i++) {
+            params.add(new SqlParam(column, table, i));
+        }
+        return params;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, table, fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof SqlParamRun run) {
+            return fromIndex == run.fromIndex && toIndex == run.toIndex
+                    && Objects.equals(column, run.column) && Objects.equals(table, run.table);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlParamRun{" +
+                "indexes=" + fromIndex + ".." + toIndex +
+                ", column='" + column + '\'' +
+                ", table='" + table + '\'' +
+                '}';
+    }
+}
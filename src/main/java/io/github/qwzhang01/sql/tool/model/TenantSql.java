@@ -0,0 +1,58 @@
+package io.github.qwzhang01.sql.tool.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL statement rewritten with tenant conditions, together with the JDBC parameter
+ * indexes of the tenant placeholders that were injected.
+ * When the tenant value is {@code ?}, the injected placeholders are interleaved with the
+ * placeholders of the original statement, e.g. in subqueries or UNION branches; the
+ * tenant id must be bound at every index of {@link #getTenantIndexes()} and the original
+ * parameters, in their original order, at all other indexes.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class TenantSql {
+    /**
+     * The rewritten SQL statement
+     */
+    private final String sql;
+
+    /**
+     * 1-based JDBC parameter indexes of the injected tenant placeholders, ascending
+     */
+    private final List<Integer> tenantIndexes;
+
+    public TenantSql(String sql, List<Integer> tenantIndexes) {
+        this.sql = sql;
+        this.tenantIndexes = Collections.unmodifiableList(tenantIndexes);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Integer> getTenantIndexes() {
+        return tenantIndexes;
+    }
+
+    /**
+     * Checks whether a JDBC placeholder was injected as tenant value
+     *
+     * @param index the 1-based JDBC parameter index
+     * @return true if the tenant id must be bound at this index
+     */
+    public boolean isTenantIndex(int index) {
+        return tenantIndexes.contains(index);
+    }
+
+    @Override
+    public String toString() {
+        return "TenantSql{" +
+                "sql='" + sql + '\'' +
+                ", tenantIndexes=" + tenantIndexes +
+                '}';
+    }
+}
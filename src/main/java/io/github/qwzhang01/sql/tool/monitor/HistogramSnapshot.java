@@ -0,0 +1,96 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable copy of the counters of a {@link LatencyHistogram}.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class HistogramSnapshot {
+
+    /**
+     * Count per bucket
+     */
+    private final long[] counts;
+
+    /**
+     * Sum of all counts
+     */
+    private final long count;
+
+    HistogramSnapshot(long[] counts) {
+        this.counts = counts;
+        long total = 0;
+        for (long bucket : counts) {
+            total += bucket;
+        }
+        this.count = total;
+    }
+
+    /**
+     * Merges snapshots, e.g. of the same operation on different statement types
+     *
+     * @param snapshots the snapshots to merge
+     * @return a snapshot holding all recorded durations
+     */
+    public static HistogramSnapshot merge(Iterable<HistogramSnapshot> snapshots) {
+        long[] merged = new long[LatencyHistogram.BUCKETS];
+        for (HistogramSnapshot snapshot : snapshots) {
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += snapshot.counts[i];
+            }
+        }
+        return new HistogramSnapshot(merged);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Estimates a percentile of the recorded durations
+     *
+     * @param percentile the percentile between 0 and 100, e.g. 99.9
+     * @param unit       unit of the result
+     * @return the upper bound of the bucket holding the percentile, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        int index = 0;
+        for (; index < counts.length - 1; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                break;
+            }
+        }
+        return unit.convert(LatencyHistogram.highestValueOf(index), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the largest recorded duration
+     *
+     * @param unit unit of the result
+     * @return the upper bound of the highest non-empty bucket, 0 if nothing was recorded
+     */
+    public long getMax(TimeUnit unit) {
+        for (int index = counts.length - 1; index >= 0; index--) {
+            if (counts[index] > 0) {
+                return unit.convert(LatencyHistogram.highestValueOf(index), TimeUnit.NANOSECONDS);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50=%dus, p99=%dus, p999=%dus, max=%dus", count,
+                getPercentile(50, TimeUnit.MICROSECONDS), getPercentile(99, TimeUnit.MICROSECONDS),
+                getPercentile(99.9, TimeUnit.MICROSECONDS), getMax(TimeUnit.MICROSECONDS));
+    }
+}
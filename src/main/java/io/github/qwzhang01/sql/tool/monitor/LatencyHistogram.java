@@ -0,0 +1,129 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with logarithmic buckets.
+ * Every power of two is split into 16 linear sub-buckets, so any recorded value is
+ * reported with a relative error below 6.25% while the whole range up to
+ * {@link Long#MAX_VALUE} fits in 1024 counters.
+ *
+ * <p>Counters are striped by thread: each stripe is allocated on first use and threads
+ * hash onto up to 16 stripes, so concurrent recording rarely contends on a cache line.
+ * Recording is one uncontended atomic increment; reads merge the stripes into a
+ * {@link HistogramSnapshot}.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    /**
+     * Number of stripes, a power of two not below the processor count, at most 16
+     */
+    private static final int STRIPES =
+            Integer.highestOneBit(Math.min(Math.max(Runtime.getRuntime().availableProcessors(), 1), 16) * 2 - 1);
+
+    /**
+     * Bucket counters per stripe, null until a thread of the stripe records
+     */
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * Records a duration
+     *
+     * @param nanos the duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        int stripe = STRIPES == 1 ? 0 : stripeOf(Thread.currentThread());
+        AtomicLongArray counts = stripes.get(stripe);
+        if (counts == null) {
+            stripes.compareAndSet(stripe, null, new AtomicLongArray(BUCKETS));
+            counts = stripes.get(stripe);
+        }
+        counts.getAndIncrement(indexOf(Math.max(nanos, 0)));
+    }
+
+    /**
+     * Merges the counters of all stripes
+     *
+     * @return the recorded durations at the time of the call
+     */
+    public HistogramSnapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            AtomicLongArray counts = stripes.get(stripe);
+            if (counts != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    merged[i] += counts.get(i);
+                }
+            }
+        }
+        return new HistogramSnapshot(merged);
+    }
+
+    /**
+     * Gets the number of recorded durations
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return snapshot().getCount();
+    }
+
+    /**
+     * Estimates a percentile of the recorded durations
+     *
+     * @param percentile the percentile between 0 and 100, e.g. 99.9
+     * @param unit       unit of the result
+     * @return the upper bound of the bucket holding the percentile, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        return snapshot().getPercentile(percentile, unit);
+    }
+
+    /**
+     * Clears all recorded durations. Durations recorded concurrently may be lost.
+     */
+    public void reset() {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            AtomicLongArray counts = stripes.get(stripe);
+            if (counts != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts.set(i, 0);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int stripeOf(Thread thread) {
+        long id = thread.getId() * 0x9e3779b97f4a7c15L;
+        return (int) (id >>> 32) & (STRIPES - 1);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+}
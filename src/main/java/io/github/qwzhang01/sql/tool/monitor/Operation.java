@@ -0,0 +1,47 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+/**
+ * {@link io.github.qwzhang01.sql.tool.helper.ParserHelper} entry points whose latencies
+ * are recorded by {@link OperationMetrics}.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public enum Operation {
+    /**
+     * {@code ParserHelper.getTables}
+     */
+    GET_TABLES,
+    /**
+     * {@code ParserHelper.getParam}
+     */
+    GET_PARAM,
+    /**
+     * {@code ParserHelper.getSpecParam}
+     */
+    GET_SPEC_PARAM,
+    /**
+     * {@code ParserHelper.addJoinAndWhere}, including {@code addJoin} and {@code addWhere}
+     */
+    ADD_JOIN_AND_WHERE,
+    /**
+     * {@code ParserHelper.analyze}
+     */
+    ANALYZE,
+    /**
+     * {@code ParserHelper.getParamRuns}
+     */
+    GET_PARAM_RUNS,
+    /**
+     * {@code ParserHelper.getBulkInsert}
+     */
+    GET_BULK_INSERT,
+    /**
+     * {@code ParserHelper.tryGetTables}
+     */
+    TRY_GET_TABLES,
+    /**
+     * {@code ParserHelper.tryGetParam}
+     */
+    TRY_GET_PARAM
+}
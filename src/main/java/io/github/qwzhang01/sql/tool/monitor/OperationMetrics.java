@@ -0,0 +1,109 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency histograms per {@link Operation} and {@link StatementType}.
+ * Callers take a start time with {@link #start()} and pass it to
+ * {@link #record(Operation, String, long)} when the operation completes; while
+ * recording is disabled, {@link #start()} returns 0 and nothing is recorded.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class OperationMetrics {
+
+    private static final StatementType[] TYPES = StatementType.values();
+
+    /**
+     * Histograms indexed by operation ordinal and statement type ordinal
+     */
+    private final LatencyHistogram[][] histograms;
+
+    /**
+     * Whether operations are timed
+     */
+    private volatile boolean enabled = true;
+
+    public OperationMetrics() {
+        histograms = new LatencyHistogram[Operation.values().length][TYPES.length];
+        for (LatencyHistogram[] byType : histograms) {
+            for (int i = 0; i < byType.length; i++) {
+                byType[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /**
+     * Takes the start time of an operation
+     *
+     * @return the current {@link System#nanoTime()}, or 0 if recording is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a completed operation
+     *
+     * @param operation the operation
+     * @param sql       the SQL statement, used to derive the statement type
+     * @param start     the value returned by {@link #start()}
+     */
+    public void record(Operation operation, String sql, long start) {
+        if (start != 0) {
+            long nanos = System.nanoTime() - start;
+            histograms[operation.ordinal()][StatementType.of(sql).ordinal()].record(nanos);
+        }
+    }
+
+    /**
+     * Gets the latencies of an operation on one statement type
+     *
+     * @param operation the operation
+     * @param type      the statement type
+     * @return the recorded latencies
+     */
+    public HistogramSnapshot snapshot(Operation operation, StatementType type) {
+        return histograms[operation.ordinal()][type.ordinal()].snapshot();
+    }
+
+    /**
+     * Gets the latencies of an operation on all statement types
+     *
+     * @param operation the operation
+     * @return the recorded latencies
+     */
+    public HistogramSnapshot snapshot(Operation operation) {
+        List<HistogramSnapshot> snapshots = new ArrayList<>(TYPES.length);
+        for (StatementType type : TYPES) {
+            snapshots.add(snapshot(operation, type));
+        }
+        return HistogramSnapshot.merge(snapshots);
+    }
+
+    /**
+     * Clears all histograms
+     */
+    public void reset() {
+        for (LatencyHistogram[] byType : histograms) {
+            for (LatencyHistogram histogram : byType) {
+                histogram.reset();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether operations are timed
+     *
+     * @param enabled true to record latencies
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
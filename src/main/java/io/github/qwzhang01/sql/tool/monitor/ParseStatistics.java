@@ -0,0 +1,81 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies of {@link io.github.qwzhang01.sql.tool.wrapper.SqlParser#parse(String)}.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class ParseStatistics {
+
+    /**
+     * Number of fingerprints kept in the slowest statement list
+     */
+    public static final int SLOWEST_CAPACITY = 10;
+
+    private final LongAdder parses = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder negativeCacheHits = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final SlowestStatements slowest = new SlowestStatements(SLOWEST_CAPACITY);
+
+    /**
+     * Records a parse attempt
+     *
+     * @param sql    the SQL statement
+     * @param nanos  the duration in nanoseconds
+     * @param failed true if the statement could not be parsed
+     */
+    public void record(String sql, long nanos, boolean failed) {
+        parses.increment();
+        if (failed) {
+            failures.increment();
+        }
+        latency.record(nanos);
+        slowest.record(sql, nanos);
+    }
+
+    /**
+     * Records a statement rejected by the negative cache without parsing
+     */
+    public void recordNegativeCacheHit() {
+        negativeCacheHits.increment();
+    }
+
+    public long getParses() {
+        return parses.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getNegativeCacheHits() {
+        return negativeCacheHits.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public SlowestStatements getSlowest() {
+        return slowest;
+    }
+
+    /**
+     * Clears all counters and latencies
+     */
+    public void reset() {
+        parses.reset();
+        failures.reset();
+        negativeCacheHits.reset();
+        latency.reset();
+        slowest.reset();
+    }
+}
@@ -0,0 +1,315 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import io.github.qwzhang01.sql.tool.cache.SqlFingerprint;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Log of statements whose parse, visit or deparse phase exceeded a time threshold.
+ * The request thread only compares the duration with the threshold and, for a slow
+ * statement, publishes an event into a lock-free ring buffer; it never blocks and never
+ * formats anything. Every event carries its sequence number, so that a slot reserved but
+ * not yet written is recognized and drained by a later flush rather than skipped. A
+ * daemon thread drains the ring periodically, aggregates the events
+ * per phase and {@link SqlFingerprint#shape(String) shape}, and writes one
+ * {@link SlowLogEntry} per aggregate to the sink, by default a {@link Logger}. If the
+ * writer falls behind, the oldest events are overwritten and counted as dropped.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SlowLog {
+
+    /**
+     * Phases of statement processing
+     */
+    public enum Phase {
+        /**
+         * Parsing the SQL text into a statement
+         */
+        PARSE,
+        /**
+         * Traversing a statement for analysis, e.g. finding tables or parameters
+         */
+        VISIT,
+        /**
+         * Rewriting a statement and producing SQL text from it
+         */
+        DEPARSE
+    }
+
+    /**
+     * Default duration above which a phase is logged, in milliseconds
+     */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 100;
+
+    /**
+     * Default number of characters of the SQL sample
+     */
+    public static final int DEFAULT_SAMPLE_LENGTH = 256;
+
+    /**
+     * Default interval between two writes of the aggregated entries, in seconds
+     */
+    public static final long DEFAULT_FLUSH_SECONDS = 10;
+
+    /**
+     * Number of slots of the ring buffer, a power of two
+     */
+    private static final int RING_SIZE = 1024;
+
+    /**
+     * Maximum number of aggregates written per flush
+     */
+    private static final int MAX_AGGREGATES = 256;
+
+    private static final Logger log = Logger.getLogger(SlowLog.class.getName());
+
+    private final AtomicReferenceArray<Event> ring = new AtomicReferenceArray<>(RING_SIZE);
+
+    /**
+     * Sequence number of the next published event
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Sequence number of the next event to drain, guarded by this
+     */
+    private long tail;
+
+    /**
+     * Events overwritten before they were drained, guarded by this
+     */
+    private long dropped;
+
+    /**
+     * Duration above which a phase is logged, 0 to disable the log
+     */
+    private volatile long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_THRESHOLD_MILLIS);
+
+    private volatile int sampleLength = DEFAULT_SAMPLE_LENGTH;
+
+    private volatile long flushMillis = TimeUnit.SECONDS.toMillis(DEFAULT_FLUSH_SECONDS);
+
+    private volatile Consumer<SlowLogEntry> sink = SlowLog::write;
+
+    /**
+     * Writer thread, started with the first slow event
+     */
+    private volatile ScheduledExecutorService writer;
+
+    /**
+     * Set by {@link #shutdown()}; no writer thread is started afterwards
+     */
+    private volatile boolean closed;
+
+    /**
+     * Takes the start time of a phase
+     *
+     * @return the current {@link System#nanoTime()}, or 0 if the log is disabled
+     */
+    public long start() {
+        return thresholdNanos == 0 ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records a completed phase started with {@link #start()}
+     *
+     * @param phase the phase
+     * @param sql   the SQL statement
+     * @param start the value returned by {@link #start()}
+     */
+    public void finish(Phase phase, String sql, long start) {
+        if (start != 0) {
+            record(phase, sql, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the duration of a phase; durations below the threshold are ignored
+     *
+     * @param phase the phase
+     * @param sql   the SQL statement
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(Phase phase, String sql, long nanos) {
+        long threshold = thresholdNanos;
+        if (threshold == 0 || nanos < threshold || sql == null) {
+            return;
+        }
+        long sequence = head.getAndIncrement();
+        ring.set((int) sequence & (RING_SIZE - 1), new Event(sequence, phase, sql, nanos));
+        if (writer == null && !closed) {
+            startWriter();
+        }
+    }
+
+    private synchronized void startWriter() {
+        if (writer == null && !closed) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sql-tool-slow-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = flushMillis;
+            executor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+            writer = executor;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Cannot write slow SQL log", e);
+        }
+    }
+
+    /**
+     * Drains the ring buffer and writes the aggregated entries to the sink now
+     *
+     * @return the number of written entries
+     */
+    public synchronized int flush() {
+        long end = head.get();
+        if (end - tail > RING_SIZE) {
+            dropped += end - tail - RING_SIZE;
+            tail = end - RING_SIZE;
+        }
+        Map<String, SlowLogEntry> aggregates = new LinkedHashMap<>();
+        int sample = sampleLength;
+        for (; tail < end; tail++) {
+            int slot = (int) tail & (RING_SIZE - 1);
+            Event event = ring.get(slot);
+            if (event == null || event.sequence < tail) {
+                // reserved but not written yet, drained by the next flush
+                break;
+            }
+            if (event.sequence > tail || !ring.compareAndSet(slot, event, null)) {
+                // overwritten by an event of a later lap
+                dropped++;
+                continue;
+            }
+            String fingerprint = SqlFingerprint.shape(event.sql);
+            String key = event.phase + " " + fingerprint;
+            SlowLogEntry entry = aggregates.get(key);
+            if (entry != null) {
+                entry.add(event.sql.length(), event.nanos);
+            } else if (aggregates.size() < MAX_AGGREGATES) {
+                String text = event.sql.length() > sample ? event.sql.substring(0, sample) + "..." : event.sql;
+                aggregates.put(key, new SlowLogEntry(event.phase, fingerprint, text, event.sql.length(), event.nanos));
+            } else {
+                dropped++;
+            }
+        }
+        Consumer<SlowLogEntry> target = sink;
+        for (SlowLogEntry entry : aggregates.values()) {
+            target.accept(entry);
+        }
+        return aggregates.size();
+    }
+
+    private static void write(SlowLogEntry entry) {
+        if (log.isLoggable(Level.WARNING)) {
+            log.warning("Slow SQL " + entry);
+        }
+    }
+
+    /**
+     * Stops the writer thread after writing pending entries. Later slow events are kept
+     * in the ring buffer for an explicit {@link #flush()}, but no writer thread is started
+     * again.
+     */
+    public synchronized void shutdown() {
+        closed = true;
+        if (writer != null) {
+            writer.shutdownNow();
+            writer = null;
+        }
+        flush();
+    }
+
+    /**
+     * Sets the duration above which a phase is logged
+     *
+     * @param threshold the threshold, 0 to disable the log
+     * @param unit      unit of the threshold
+     */
+    public void setThreshold(long threshold, TimeUnit unit) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Slow log threshold cannot be negative: " + threshold);
+        }
+        this.thresholdNanos = unit.toNanos(threshold);
+    }
+
+    public long getThreshold(TimeUnit unit) {
+        return unit.convert(thresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the number of characters of the SQL sample kept per entry
+     *
+     * @param sampleLength the sample length, longer statements are truncated
+     */
+    public void setSampleLength(int sampleLength) {
+        this.sampleLength = Math.max(sampleLength, 0);
+    }
+
+    public int getSampleLength() {
+        return sampleLength;
+    }
+
+    /**
+     * Sets the interval between two writes; takes effect when the writer thread starts
+     *
+     * @param interval the interval, must be positive
+     * @param unit     unit of the interval
+     */
+    public void setFlushInterval(long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive: " + interval);
+        }
+        this.flushMillis = unit.toMillis(interval);
+    }
+
+    /**
+     * Sets where aggregated entries are written, by default a {@link Logger} at level
+     * WARNING. The sink runs on the writer thread.
+     *
+     * @param sink the sink, null to restore the default
+     */
+    public void setSink(Consumer<SlowLogEntry> sink) {
+        this.sink = sink == null ? SlowLog::write : sink;
+    }
+
+    /**
+     * Gets the number of slow events lost because the ring buffer or the aggregation
+     * table was full
+     *
+     * @return dropped events since construction
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Gets the number of slow events recorded
+     *
+     * @return recorded events since construction
+     */
+    public long getRecorded() {
+        return head.get();
+    }
+
+    private record Event(long sequence, Phase phase, String sql, long nanos) {
+    }
+}
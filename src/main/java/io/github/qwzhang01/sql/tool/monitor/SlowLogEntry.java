@@ -0,0 +1,92 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slow events of one fingerprint and phase aggregated by a {@link SlowLog} flush.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SlowLogEntry {
+
+    private final SlowLog.Phase phase;
+
+    private final String fingerprint;
+
+    /**
+     * The first statement of the aggregate, truncated to the sample length
+     */
+    private final String sample;
+
+    private int count;
+
+    private int maxLength;
+
+    private long maxNanos;
+
+    private long totalNanos;
+
+    SlowLogEntry(SlowLog.Phase phase, String fingerprint, String sample, int length, long nanos) {
+        this.phase = phase;
+        this.fingerprint = fingerprint;
+        this.sample = sample;
+        add(length, nanos);
+    }
+
+    void add(int length, long nanos) {
+        count++;
+        maxLength = Math.max(maxLength, length);
+        maxNanos = Math.max(maxNanos, nanos);
+        totalNanos += nanos;
+    }
+
+    public SlowLog.Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the statement shape shared by the aggregated events
+     *
+     * @return the fingerprint with literals replaced by {@code ?}
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getSample() {
+        return sample;
+    }
+
+    /**
+     * Gets the number of slow events aggregated in this entry
+     *
+     * @return the number of events
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the length of the longest statement
+     *
+     * @return the length in characters
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public long getMax(TimeUnit unit) {
+        return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getTotal(TimeUnit unit) {
+        return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s count=%d, max=%.3fms, avg=%.3fms, length=%d: %s", phase, count,
+                maxNanos / 1_000_000.0, totalNanos / 1_000_000.0 / count, maxLength, sample);
+    }
+}
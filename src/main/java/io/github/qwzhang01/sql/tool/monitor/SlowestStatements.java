@@ -0,0 +1,100 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import io.github.qwzhang01.sql.tool.cache.SqlFingerprint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The slowest statements seen since the last reset, one entry per fingerprint.
+ * A duration that is not slower than the fastest retained entry is rejected without
+ * locking or fingerprinting the statement, so recording fast statements costs one
+ * volatile read.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SlowestStatements {
+
+    /**
+     * Maximum number of retained fingerprints
+     */
+    private final int capacity;
+
+    /**
+     * Slowest duration in nanoseconds per fingerprint, guarded by this
+     */
+    private final Map<String, Long> slowest = new LinkedHashMap<>();
+
+    /**
+     * Duration a statement must exceed to be retained once the list is full
+     */
+    private volatile long threshold;
+
+    /**
+     * Constructs an empty list
+     *
+     * @param capacity maximum number of retained fingerprints
+     */
+    public SlowestStatements(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records the duration of a statement
+     *
+     * @param sql   the SQL statement
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(String sql, long nanos) {
+        if (nanos <= threshold || sql == null) {
+            return;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        synchronized (this) {
+            slowest.merge(fingerprint, nanos, Math::max);
+            if (slowest.size() > capacity) {
+                slowest.values().remove(minimum());
+            }
+            if (slowest.size() == capacity) {
+                threshold = minimum();
+            }
+        }
+    }
+
+    private long minimum() {
+        long minimum = Long.MAX_VALUE;
+        for (long nanos : slowest.values()) {
+            minimum = Math.min(minimum, nanos);
+        }
+        return minimum;
+    }
+
+    /**
+     * Returns the retained statements, slowest first
+     *
+     * @return fingerprints with their slowest duration in nanoseconds
+     */
+    public synchronized List<Map.Entry<String, Long>> getSlowest() {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : slowest.entrySet()) {
+            entries.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return entries;
+    }
+
+    /**
+     * Forgets all retained statements
+     */
+    public synchronized void reset() {
+        slowest.clear();
+        threshold = 0;
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+/**
+ * Management interface for inspecting and tuning the parser and its caches at runtime,
+ * registered by {@link SqlToolManagement#register()}.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public interface SqlToolMXBean {
+
+    /**
+     * Gets the number of parse attempts since the last statistics reset
+     *
+     * @return parse attempts, including failed ones
+     */
+    long getParseCount();
+
+    /**
+     * Gets the number of failed parse attempts since the last statistics reset
+     *
+     * @return failed parse attempts
+     */
+    long getParseFailures();
+
+    /**
+     * Gets the number of statements rejected by the negative cache since the last
+     * statistics reset
+     *
+     * @return negative cache hits
+     */
+    long getNegativeCacheHits();
+
+    double getParseLatencyP50Micros();
+
+    double getParseLatencyP99Micros();
+
+    double getParseLatencyP999Micros();
+
+    /**
+     * Gets the slowest statements since the last statistics reset
+     *
+     * @return "duration ms: fingerprint" entries, slowest first
+     */
+    String[] getSlowestFingerprints();
+
+    /**
+     * Gets the latencies of the {@link io.github.qwzhang01.sql.tool.helper.ParserHelper}
+     * entry points since the last statistics reset
+     *
+     * @return "operation type: count and percentiles" entries for every recorded combination
+     */
+    String[] getOperationLatencies();
+
+    long getSlowThresholdMillis();
+
+    /**
+     * Sets the duration above which a parse, visit or deparse phase is written to the
+     * slow log
+     *
+     * @param millis the threshold in milliseconds, 0 to disable the slow log
+     */
+    void setSlowThresholdMillis(long millis);
+
+    /**
+     * Gets the number of slow events lost because the slow log writer fell behind
+     *
+     * @return dropped slow events
+     */
+    long getSlowLogDropped();
+
+    int getAnalysisCacheSize();
+
+    int getAnalysisCacheCapacity();
+
+    long getAnalysisCacheWeight();
+
+    long getAnalysisCacheMaxWeight();
+
+    double getAnalysisCacheHitRatio();
+
+    long getAnalysisCacheEvictions();
+
+    /**
+     * Gets the number of statements in the negative cache
+     *
+     * @return the size, 0 if the negative cache is disabled
+     */
+    int getNegativeCacheSize();
+
+    /**
+     * Gets the fingerprints of statements known to be unparsable
+     *
+     * @return the fingerprints, empty if the negative cache is disabled
+     */
+    String[] getNegativeCacheFingerprints();
+
+    boolean isInstrumented();
+
+    /**
+     * Turns parse statistics and operation latencies on or off
+     *
+     * @param instrumented true to record parse statistics and operation latencies
+     */
+    void setInstrumented(boolean instrumented);
+
+    /**
+     * Removes all cached analyses
+     */
+    void clearAnalysisCache();
+
+    /**
+     * Changes the limits of the analysis cache
+     *
+     * @param capacity maximum number of statements
+     * @param maxBytes maximum estimated size of the cached analyses in bytes
+     */
+    void resizeAnalysisCache(int capacity, long maxBytes);
+
+    /**
+     * Forgets all statements known to be unparsable
+     */
+    void clearNegativeCache();
+
+    /**
+     * Replaces the negative cache
+     *
+     * @param capacity   maximum number of statements to remember, 0 to disable the cache
+     * @param ttlSeconds time-to-live of an entry in seconds
+     */
+    void resizeNegativeCache(int capacity, long ttlSeconds);
+
+    /**
+     * Clears parse counters, parse and operation latencies and the slowest statement list
+     */
+    void resetStatistics();
+}
@@ -0,0 +1,317 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import io.github.qwzhang01.sql.tool.cache.AnalysisCache;
+import io.github.qwzhang01.sql.tool.cache.NegativeCache;
+import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.sql.tool.helper.SqlToolEngine;
+import io.github.qwzhang01.sql.tool.model.SqlAnalysis;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SqlToolMXBean} backed by the {@link SqlParser} singleton and the
+ * {@link ParserHelper} analysis cache and operation metrics. Registration is explicit,
+ * e.g. at application startup, so that embedding the library never touches the platform
+ * MBean server on its own. Beans of further engines are registered with
+ * {@link #register(SqlToolEngine, String)}.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class SqlToolManagement implements SqlToolMXBean {
+
+    /**
+     * Object name of the registered MBean
+     */
+    public static final String OBJECT_NAME = "io.github.qwzhang01.sql.tool:type=SqlTool";
+
+    private final SqlParser parser;
+
+    private final AnalysisCache<SqlAnalysis> analysisCache;
+
+    private final OperationMetrics metrics;
+
+    /**
+     * Constructs the management bean for the default parser, analysis cache and metrics
+     */
+    public SqlToolManagement() {
+        this(SqlParser.getInstance(), ParserHelper.getAnalysisCache(), ParserHelper.getMetrics());
+    }
+
+    /**
+     * Constructs the management bean for the parser, analysis cache and metrics of an engine
+     *
+     * @param engine the engine
+     */
+    public SqlToolManagement(SqlToolEngine engine) {
+        this(engine.getParser(), engine.getAnalysisCache(), engine.getMetrics());
+    }
+
+    /**
+     * Constructs the management bean for a parser, an analysis cache and operation metrics
+     *
+     * @param parser        the parser
+     * @param analysisCache the analysis cache
+     * @param metrics       the operation metrics
+     */
+    public SqlToolManagement(SqlParser parser, AnalysisCache<SqlAnalysis> analysisCache, OperationMetrics metrics) {
+        this.parser = parser;
+        this.analysisCache = analysisCache;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Registers the management bean with the platform MBean server, once
+     *
+     * @return the object name of the bean
+     * @throws IllegalStateException if the bean cannot be registered
+     */
+    public static ObjectName register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = objectName();
+        try {
+            server.registerMBean(new SqlToolManagement(), name);
+        } catch (InstanceAlreadyExistsException e) {
+            // registered before
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register MBean " + OBJECT_NAME, e);
+        }
+        return name;
+    }
+
+    /**
+     * Removes the management bean from the platform MBean server, if registered
+     */
+    public static void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName());
+        } catch (InstanceNotFoundException e) {
+            // not registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Registers a management bean for an engine with the platform MBean server, under
+     * {@link #OBJECT_NAME} with an additional {@code name} key property, so that beans of
+     * several engines can be registered side by side
+     *
+     * @param engine the engine
+     * @param name   the name of the engine, unique among the registered engines
+     * @return the object name of the bean
+     * @throws IllegalStateException if the bean cannot be registered, e.g. because the
+     *                               name is already taken
+     */
+    public static ObjectName register(SqlToolEngine engine, String name) {
+        ObjectName objectName = objectName(name);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new SqlToolManagement(engine), objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register MBean " + objectName, e);
+        }
+        return objectName;
+    }
+
+    /**
+     * Removes the management bean of an engine from the platform MBean server, if
+     * registered
+     *
+     * @param name the name the engine was registered with
+     */
+    public static void unregister(String name) {
+        ObjectName objectName = objectName(name);
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            // not registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister MBean " + objectName, e);
+        }
+    }
+
+    private static ObjectName objectName() {
+        try {
+            return new ObjectName(OBJECT_NAME);
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ObjectName objectName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Engine name cannot be empty");
+        }
+        try {
+            return new ObjectName(OBJECT_NAME + ",name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public long getParseCount() {
+        return parser.getStatistics().getParses();
+    }
+
+    @Override
+    public long getParseFailures() {
+        return parser.getStatistics().getFailures();
+    }
+
+    @Override
+    public long getNegativeCacheHits() {
+        return parser.getStatistics().getNegativeCacheHits();
+    }
+
+    @Override
+    public double getParseLatencyP50Micros() {
+        return percentileMicros(50);
+    }
+
+    @Override
+    public double getParseLatencyP99Micros() {
+        return percentileMicros(99);
+    }
+
+    @Override
+    public double getParseLatencyP999Micros() {
+        return percentileMicros(99.9);
+    }
+
+    private double percentileMicros(double percentile) {
+        return parser.getStatistics().getLatency().getPercentile(percentile, TimeUnit.NANOSECONDS) / 1000.0;
+    }
+
+    @Override
+    public String[] getSlowestFingerprints() {
+        List<Map.Entry<String, Long>> slowest = parser.getStatistics().getSlowest().getSlowest();
+        String[] result = new String[slowest.size()];
+        for (int i = 0; i < result.length; i++) {
+            Map.Entry<String, Long> entry = slowest.get(i);
+            result[i] = String.format("%.3f ms: %s", entry.getValue() / 1_000_000.0, entry.getKey());
+        }
+        return result;
+    }
+
+    @Override
+    public String[] getOperationLatencies() {
+        List<String> result = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            for (StatementType type : StatementType.values()) {
+                HistogramSnapshot snapshot = metrics.snapshot(operation, type);
+                if (snapshot.getCount() > 0) {
+                    result.add(operation + " " + type + ": " + snapshot);
+                }
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    @Override
+    public long getSlowThresholdMillis() {
+        return parser.getSlowLog().getThreshold(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void setSlowThresholdMillis(long millis) {
+        parser.getSlowLog().setThreshold(millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getSlowLogDropped() {
+        return parser.getSlowLog().getDropped();
+    }
+
+    @Override
+    public int getAnalysisCacheSize() {
+        return analysisCache.size();
+    }
+
+    @Override
+    public int getAnalysisCacheCapacity() {
+        return analysisCache.getCapacity();
+    }
+
+    @Override
+    public long getAnalysisCacheWeight() {
+        return analysisCache.getShared().getWeight();
+    }
+
+    @Override
+    public long getAnalysisCacheMaxWeight() {
+        return analysisCache.getShared().getMaxWeight();
+    }
+
+    @Override
+    public double getAnalysisCacheHitRatio() {
+        return analysisCache.getHitRatio();
+    }
+
+    @Override
+    public long getAnalysisCacheEvictions() {
+        return analysisCache.getShared().getEvictions();
+    }
+
+    @Override
+    public int getNegativeCacheSize() {
+        NegativeCache cache = parser.getNegativeCache();
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Override
+    public String[] getNegativeCacheFingerprints() {
+        NegativeCache cache = parser.getNegativeCache();
+        return cache == null ? new String[0] : cache.getFingerprints().toArray(new String[0]);
+    }
+
+    @Override
+    public boolean isInstrumented() {
+        return parser.isInstrumented() || metrics.isEnabled();
+    }
+
+    @Override
+    public void setInstrumented(boolean instrumented) {
+        parser.setInstrumented(instrumented);
+        metrics.setEnabled(instrumented);
+    }
+
+    @Override
+    public void clearAnalysisCache() {
+        analysisCache.clear();
+    }
+
+    @Override
+    public void resizeAnalysisCache(int capacity, long maxBytes) {
+        analysisCache.getShared().resize(capacity, maxBytes);
+    }
+
+    @Override
+    public void clearNegativeCache() {
+        NegativeCache cache = parser.getNegativeCache();
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void resizeNegativeCache(int capacity, long ttlSeconds) {
+        parser.setNegativeCache(capacity, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void resetStatistics() {
+        parser.getStatistics().reset();
+        metrics.reset();
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+/**
+ * Coarse statement types used to break down operation latencies.
+ * The type is derived from the first keyword of the statement, without parsing.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public enum StatementType {
+    /**
+     * SELECT statements, including WITH queries
+     */
+    SELECT,
+    /**
+     * INSERT and REPLACE statements
+     */
+    INSERT,
+    /**
+     * UPDATE statements
+     */
+    UPDATE,
+    /**
+     * DELETE statements
+     */
+    DELETE,
+    /**
+     * Any other statement, e.g. DDL
+     */
+    OTHER;
+
+    /**
+     * Classifies a statement by its first keyword, skipping whitespace, comments and
+     * opening parentheses
+     *
+     * @param sql the SQL statement
+     * @return the statement type, {@link #OTHER} if not recognized
+     */
+    public static StatementType of(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i + 2);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        if (startsWithKeyword(sql, i, "SELECT") || startsWithKeyword(sql, i, "WITH")) {
+            return SELECT;
+        }
+        if (startsWithKeyword(sql, i, "INSERT") || startsWithKeyword(sql, i, "REPLACE")) {
+            return INSERT;
+        }
+        if (startsWithKeyword(sql, i, "UPDATE")) {
+            return UPDATE;
+        }
+        if (startsWithKeyword(sql, i, "DELETE")) {
+            return DELETE;
+        }
+        return OTHER;
+    }
+
+    private static boolean startsWithKeyword(String sql, int offset, String keyword) {
+        int end = offset + keyword.length();
+        return sql.regionMatches(true, offset, keyword, 0, keyword.length())
+                && (end == sql.length() || !Character.isLetterOrDigit(sql.charAt(end)) && sql.charAt(end) != '_');
+    }
+}
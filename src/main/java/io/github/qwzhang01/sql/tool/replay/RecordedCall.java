@@ -0,0 +1,126 @@
+package io.github.qwzhang01.sql.tool.replay;
+
+import io.github.qwzhang01.sql.tool.model.AnalysisResult;
+import io.github.qwzhang01.sql.tool.model.SqlAnalysis;
+import io.github.qwzhang01.sql.tool.monitor.Operation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link io.github.qwzhang01.sql.tool.helper.ParserHelper} call captured by a
+ * {@link WorkloadRecorder}. Besides the statement, a call carries the arguments needed to
+ * repeat it:
+ * <ul>
+ *     <li>{@link Operation#ADD_JOIN_AND_WHERE}: the join clause and the where clause, either may be null</li>
+ *     <li>{@link Operation#GET_SPEC_PARAM}: nothing for the default placeholder syntax,
+ *     {@code "pattern", regex} for a custom pattern or {@code "syntax", names} for a
+ *     {@link io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderScanner}</li>
+ *     <li>other operations: nothing</li>
+ * </ul>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class RecordedCall {
+
+    /**
+     * Result prefix of a call that threw an exception
+     */
+    static final String FAILURE_PREFIX = "!";
+
+    private final Operation operation;
+
+    private final String sql;
+
+    private final String[] arguments;
+
+    /**
+     * Start of the call relative to the start of the recording
+     */
+    private final long offsetNanos;
+
+    private final long durationNanos;
+
+    /**
+     * Normalized result, see {@link #describe(Object, Throwable)}
+     */
+    private final String result;
+
+    public RecordedCall(Operation operation, String sql, String[] arguments,
+                        long offsetNanos, long durationNanos, String result) {
+        this.operation = operation;
+        this.sql = sql;
+        this.arguments = arguments;
+        this.offsetNanos = offsetNanos;
+        this.durationNanos = durationNanos;
+        this.result = result;
+    }
+
+    /**
+     * Describes the outcome of a call so that equal outcomes have equal descriptions,
+     * independently of the iteration order of the underlying sets
+     *
+     * @param result the returned value
+     * @param error  the thrown exception, or null if the call returned normally
+     * @return the description
+     */
+    static String describe(Object result, Throwable error) {
+        if (error != null) {
+            return FAILURE_PREFIX + error.getClass().getName();
+        }
+        if (result instanceof Collection<?> collection) {
+            List<String> elements = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                elements.add(String.valueOf(element));
+            }
+            elements.sort(null);
+            return elements.toString();
+        }
+        if (result instanceof SqlAnalysis analysis) {
+            return "tables=" + describe(analysis.getTables(), null)
+                    + ", params=" + describe(analysis.getParams(), null)
+                    + ", unsupported=" + analysis.getUnsupportedType();
+        }
+        if (result instanceof AnalysisResult<?> analysis) {
+            return analysis.isSupported() ? describe(analysis.getValue(), null)
+                    : "unsupported=" + analysis.getUnsupportedType();
+        }
+        return String.valueOf(result);
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String[] getArguments() {
+        return arguments;
+    }
+
+    public long getOffset(TimeUnit unit) {
+        return unit.convert(offsetNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getDuration(TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Checks whether the recorded call threw an exception
+     *
+     * @return true if the call failed
+     */
+    public boolean isFailed() {
+        return result.startsWith(FAILURE_PREFIX);
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.qwzhang01.sql.tool.replay;
+
+import io.github.qwzhang01.sql.tool.monitor.HistogramSnapshot;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link WorkloadReplayer} run: throughput, latencies of the replayed and of
+ * the recorded calls, and the calls whose result differs from the recorded one.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class ReplayReport {
+
+    private final int calls;
+
+    private final int threads;
+
+    private final long elapsedNanos;
+
+    private final HistogramSnapshot latency;
+
+    private final HistogramSnapshot recordedLatency;
+
+    private final long mismatchCount;
+
+    /**
+     * The first mismatches, as "operation sql: expected -> actual"
+     */
+    private final List<String> mismatches;
+
+    ReplayReport(int calls, int threads, long elapsedNanos, HistogramSnapshot latency,
+                 HistogramSnapshot recordedLatency, long mismatchCount, List<String> mismatches) {
+        this.calls = calls;
+        this.threads = threads;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.recordedLatency = recordedLatency;
+        this.mismatchCount = mismatchCount;
+        this.mismatches = List.copyOf(mismatches);
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of replayed calls per second
+     *
+     * @return the throughput
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : calls * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Gets the latencies of the replayed calls
+     *
+     * @return the replay latencies
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the latencies measured while recording
+     *
+     * @return the recorded latencies
+     */
+    public HistogramSnapshot getRecordedLatency() {
+        return recordedLatency;
+    }
+
+    /**
+     * Gets the number of calls whose result differs from the recorded result
+     *
+     * @return the number of mismatches
+     */
+    public long getMismatchCount() {
+        return mismatchCount;
+    }
+
+    /**
+     * Gets descriptions of the first mismatches
+     *
+     * @return at most {@link WorkloadReplayer#MAX_REPORTED_MISMATCHES} descriptions
+     */
+    public List<String> getMismatches() {
+        return mismatches;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Replayed %d calls on %d threads in %d ms, %.0f calls/s%n",
+                calls, threads, getElapsed(TimeUnit.MILLISECONDS), getThroughput()));
+        builder.append("  replay:   ").append(latency).append(System.lineSeparator());
+        builder.append("  recorded: ").append(recordedLatency).append(System.lineSeparator());
+        builder.append("  mismatches: ").append(mismatchCount);
+        for (String mismatch : mismatches) {
+            builder.append(System.lineSeparator()).append("    ").append(mismatch);
+        }
+        return builder.toString();
+    }
+}
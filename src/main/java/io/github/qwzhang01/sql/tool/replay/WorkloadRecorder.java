@@ -0,0 +1,187 @@
+package io.github.qwzhang01.sql.tool.replay;
+
+import io.github.qwzhang01.sql.tool.monitor.Operation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Captures {@link io.github.qwzhang01.sql.tool.helper.ParserHelper} calls into a compact,
+ * gzip-compressed local file for {@link WorkloadReplayer}. Install a recorder with
+ * {@code ParserHelper.setRecorder(recorder)} and close it when done. Calls are written on
+ * the calling thread under a lock, so recording is meant for capture sessions rather
+ * than for permanent use; a write error stops the recording without failing the call.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class WorkloadRecorder implements Closeable {
+
+    /**
+     * File signature, "SQLR"
+     */
+    private static final int MAGIC = 0x53514C52;
+
+    private static final int VERSION = 1;
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private static final Logger log = Logger.getLogger(WorkloadRecorder.class.getName());
+
+    private final DataOutputStream out;
+
+    /**
+     * {@link System#nanoTime()} at the start of the recording
+     */
+    private final long origin = System.nanoTime();
+
+    /**
+     * Maximum number of calls to record
+     */
+    private final long maxCalls;
+
+    /**
+     * Number of recorded calls, guarded by this
+     */
+    private long recorded;
+
+    /**
+     * Whether the file is closed or could not be written, guarded by this
+     */
+    private boolean closed;
+
+    /**
+     * Creates a recorder writing to a new file, replacing an existing one
+     *
+     * @param file     the recording file
+     * @param maxCalls maximum number of calls to record, later calls are ignored
+     * @throws IOException if the file cannot be created
+     */
+    public WorkloadRecorder(Path file, long maxCalls) throws IOException {
+        this.maxCalls = maxCalls;
+        this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Records a completed call
+     *
+     * @param operation the operation
+     * @param sql       the SQL statement
+     * @param arguments the other arguments of the call, see {@link RecordedCall}
+     * @param start     {@link System#nanoTime()} at the start of the call
+     * @param result    the returned value
+     * @param error     the thrown exception, or null if the call returned normally
+     */
+    public void record(Operation operation, String sql, String[] arguments, long start, Object result, Throwable error) {
+        long duration = System.nanoTime() - start;
+        String description = RecordedCall.describe(result, error);
+        synchronized (this) {
+            if (closed || recorded >= maxCalls) {
+                return;
+            }
+            try {
+                out.writeByte(operation.ordinal());
+                out.writeLong(start - origin);
+                out.writeLong(duration);
+                writeString(sql);
+                out.writeByte(arguments.length);
+                for (String argument : arguments) {
+                    writeString(argument);
+                }
+                writeString(description);
+                recorded++;
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Cannot write SQL workload recording, recording stopped", e);
+                closed = true;
+            }
+        }
+    }
+
+    private void writeString(String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Gets the number of recorded calls
+     *
+     * @return recorded calls
+     */
+    public synchronized long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Finishes the recording file; later calls are ignored
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        out.close();
+    }
+
+    /**
+     * Reads a recording file
+     *
+     * @param file the recording file
+     * @return the recorded calls in recording order
+     * @throws IOException if the file cannot be read or is not a recording
+     */
+    public static List<RecordedCall> read(Path file) throws IOException {
+        List<RecordedCall> calls = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a SQL workload recording: " + file);
+            }
+            while (true) {
+                int operation;
+                try {
+                    operation = in.readUnsignedByte();
+                } catch (EOFException e) {
+                    return calls;
+                }
+                long offset = in.readLong();
+                long duration = in.readLong();
+                String sql = readString(in);
+                String[] arguments = new String[in.readUnsignedByte()];
+                for (int i = 0; i < arguments.length; i++) {
+                    arguments[i] = readString(in);
+                }
+                calls.add(new RecordedCall(OPERATIONS[operation], sql, arguments, offset, duration, readString(in)));
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.qwzhang01.sql.tool.replay;
+
+import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderScanner;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderSyntax;
+import io.github.qwzhang01.sql.tool.monitor.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Re-executes calls captured by a {@link WorkloadRecorder} against the current library,
+ * as fast as possible on one or more threads, and compares every result with the
+ * recorded one. Run from the command line with
+ * {@code java ... WorkloadReplayer <recording> [threads] [rounds]}.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class WorkloadReplayer {
+
+    /**
+     * Maximum number of mismatches described in a report
+     */
+    public static final int MAX_REPORTED_MISMATCHES = 20;
+
+    private final List<RecordedCall> calls;
+
+    /**
+     * Compiled patterns and scanners of {@code getSpecParam} calls, shared like the
+     * application shares them
+     */
+    private final Map<String, Object> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a replayer for recorded calls
+     *
+     * @param calls the calls, e.g. from {@link WorkloadRecorder#read(Path)}
+     */
+    public WorkloadReplayer(List<RecordedCall> calls) {
+        this.calls = List.copyOf(calls);
+    }
+
+    /**
+     * Replays all calls once
+     *
+     * @param threads number of threads; the calls are distributed over the threads in
+     *                recording order
+     * @return the report
+     */
+    public ReplayReport replay(int threads) {
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram recordedLatency = new LatencyHistogram();
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong mismatchCount = new AtomicLong();
+        ConcurrentLinkedQueue<String> mismatches = new ConcurrentLinkedQueue<>();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < calls.size(); i = next.getAndIncrement()) {
+                RecordedCall call = calls.get(i);
+                long start = System.nanoTime();
+                String result = execute(call);
+                latency.record(System.nanoTime() - start);
+                recordedLatency.record(call.getDuration(TimeUnit.NANOSECONDS));
+                if (!result.equals(call.getResult()) && mismatchCount.incrementAndGet() <= MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(call.getOperation() + " " + call.getSql() + ": " + call.getResult() + " -> " + result);
+                }
+            }
+        };
+
+        long start = System.nanoTime();
+        if (threads <= 1) {
+            worker.run();
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>(threads);
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(worker));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Replay interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Replay failed", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new ReplayReport(calls.size(), Math.max(threads, 1), elapsed, latency.snapshot(),
+                recordedLatency.snapshot(), mismatchCount.get(), new ArrayList<>(mismatches));
+    }
+
+    /**
+     * Executes a recorded call
+     *
+     * @param call the call
+     * @return the described result, in the form recorded by {@link WorkloadRecorder}
+     */
+    String execute(RecordedCall call) {
+        String sql = call.getSql();
+        String[] arguments = call.getArguments();
+        try {
+            Object result = switch (call.getOperation()) {
+                case GET_TABLES -> ParserHelper.getTables(sql);
+                case GET_PARAM -> ParserHelper.getParam(sql);
+                case ANALYZE -> ParserHelper.analyze(sql);
+                case GET_PARAM_RUNS -> ParserHelper.getParamRuns(sql);
+                case GET_BULK_INSERT -> ParserHelper.getBulkInsert(sql);
+                case TRY_GET_TABLES -> ParserHelper.tryGetTables(sql);
+                case TRY_GET_PARAM -> ParserHelper.tryGetParam(sql);
+                case ADD_JOIN_AND_WHERE -> ParserHelper.addJoinAndWhere(sql, arguments[0], arguments[1]);
+                case GET_SPEC_PARAM -> {
+                    if (arguments.length == 0) {
+                        yield ParserHelper.getSpecParam(sql);
+                    } else if ("pattern".equals(arguments[0])) {
+                        yield ParserHelper.getSpecParam(sql, (Pattern) compiled.computeIfAbsent(
+                                "pattern " + arguments[1], key -> Pattern.compile(arguments[1])));
+                    }
+                    yield ParserHelper.getSpecParam(sql, (PlaceholderScanner) compiled.computeIfAbsent(
+                            "syntax " + arguments[1], key -> scanner(arguments[1])));
+                }
+            };
+            return RecordedCall.describe(result, null);
+        } catch (RuntimeException e) {
+            return RecordedCall.describe(null, e);
+        }
+    }
+
+    private static PlaceholderScanner scanner(String syntaxes) {
+        String[] names = syntaxes.split(",");
+        PlaceholderSyntax[] values = new PlaceholderSyntax[names.length];
+        for (int i = 0; i < names.length; i++) {
+            values[i] = PlaceholderSyntax.valueOf(names[i]);
+        }
+        return PlaceholderScanner.compile(values);
+    }
+
+    /**
+     * Replays a recording file and prints the report of every round
+     *
+     * @param args recording file, optional number of threads (default 1) and optional
+     *             number of rounds (default 3)
+     * @throws IOException if the recording cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: WorkloadReplayer <recording> [threads] [rounds]");
+            System.exit(2);
+        }
+        List<RecordedCall> calls = WorkloadRecorder.read(Path.of(args[0]));
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        WorkloadReplayer replayer = new WorkloadReplayer(calls);
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("Round " + round + ": " + replayer.replay(threads));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.qwzhang01.sql.tool.wrapper;
+
+import io.github.qwzhang01.sql.tool.exception.SqlComplexityException;
+import io.github.qwzhang01.sql.tool.exception.SqlComplexityException.Limit;
+
+/**
+ * Enforces {@link ParseLimits} on SQL text and on AST traversals.
+ * {@link #checkText(String, ParseLimits)} runs a single lexical pass before parsing.
+ * An instance tracks one traversal: visitors call {@link #enter()} and {@link #exit()}
+ * around recursive expression visits and {@link #count(int)} for flat lists, and the
+ * guard fails fast once the depth, node or time limit is exceeded.
+ *
+ * <p>Instances are not thread-safe; create one per traversal.</p>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class ComplexityGuard {
+
+    /**
+     * Number of visited nodes between two clock reads
+     */
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    private final int maxDepth;
+
+    private final int maxNodes;
+
+    private final long timeBudgetNanos;
+
+    private final long startNanos;
+
+    private int depth;
+
+    private int nodes;
+
+    /**
+     * Constructs a guard for one traversal, starting its time budget now
+     *
+     * @param limits the limits to enforce, null for none
+     */
+    public ComplexityGuard(ParseLimits limits) {
+        this.maxDepth = limits == null ? 0 : limits.getMaxDepth();
+        this.maxNodes = limits == null ? 0 : limits.getMaxNodes();
+        this.timeBudgetNanos = limits == null ? 0 : limits.getTimeBudgetMillis() * 1_000_000L;
+        this.startNanos = timeBudgetNanos > 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Checks the text limits (length, parenthesis depth, tokens) of a SQL statement
+     * in one pass, skipping quoted literals and comments
+     *
+     * @param sql    the SQL statement
+     * @param limits the limits to enforce
+     * @throws SqlComplexityException if a limit is exceeded
+     */
+    public static void checkText(String sql, ParseLimits limits) {
+        if (sql == null || limits == null) {
+            return;
+        }
+        int length = sql.length();
+        if (limits.getMaxLength() > 0 && length > limits.getMaxLength()) {
+            throw new SqlComplexityException(Limit.LENGTH, limits.getMaxLength(), length);
+        }
+        int maxDepth = limits.getMaxDepth();
+        int maxTokens = limits.getMaxTokens();
+        if (maxDepth <= 0 && maxTokens <= 0) {
+            return;
+        }
+
+        int depth = 0;
+        int tokens = 0;
+        boolean inWord = false;
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.') {
+                if (!inWord) {
+                    inWord = true;
+                    tokens++;
+                }
+                continue;
+            }
+            inWord = false;
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(sql, i, c);
+                tokens++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipTo(sql, i, "\n");
+                continue;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = skipTo(sql, i + 2, "*/") + 1;
+                continue;
+            } else {
+                tokens++;
+                if (c == '(') {
+                    depth++;
+                    if (maxDepth > 0 && depth > maxDepth) {
+                        throw new SqlComplexityException(Limit.DEPTH, maxDepth, depth);
+                    }
+                } else if (c == ')') {
+                    depth--;
+                }
+            }
+            if (maxTokens > 0 && tokens > maxTokens) {
+                throw new SqlComplexityException(Limit.TOKENS, maxTokens, tokens);
+            }
+        }
+        if (maxTokens > 0 && tokens > maxTokens) {
+            throw new SqlComplexityException(Limit.TOKENS, maxTokens, tokens);
+        }
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int length = sql.length();
+        for (int i = start + 1; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i++;
+            } else if (c == quote) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static int skipTo(String sql, int start, String end) {
+        int index = sql.indexOf(end, start);
+        return index < 0 ? sql.length() : index;
+    }
+
+    /**
+     * Records entering a nested node
+     *
+     * @throws SqlComplexityException if the depth, node or time limit is exceeded
+     */
+    public void enter() {
+        depth++;
+        if (maxDepth > 0 && depth > maxDepth) {
+            throw new SqlComplexityException(Limit.DEPTH, maxDepth, depth);
+        }
+        count(1);
+    }
+
+    /**
+     * Records leaving a nested node
+     */
+    public void exit() {
+        depth--;
+    }
+
+    /**
+     * Records visiting a number of nodes at the current depth
+     *
+     * @param count number of nodes
+     * @throws SqlComplexityException if the node or time limit is exceeded
+     */
+    public void count(int count) {
+        int before = nodes;
+        nodes += count;
+        if (maxNodes > 0 && nodes > maxNodes) {
+            throw new SqlComplexityException(Limit.NODES, maxNodes, nodes);
+        }
+        if (timeBudgetNanos > 0 && before / TIME_CHECK_INTERVAL != nodes / TIME_CHECK_INTERVAL) {
+            long elapsed = System.nanoTime() - startNanos;
+            if (elapsed > timeBudgetNanos) {
+                throw new SqlComplexityException(Limit.TIME, timeBudgetNanos / 1_000_000L, elapsed / 1_000_000L);
+            }
+        }
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.qwzhang01.sql.tool.wrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL statement whose large string literals have been swapped for short sentinels.
+ * Statements embedding multi-MB base64 blobs or JSON documents spend most of their parse
+ * time and memory tokenizing and copying those literals, although table and parameter
+ * analysis never looks at their content. {@link #of(String, int)} replaces every string
+ * literal longer than a threshold with a sentinel literal such as
+ * {@code '__sqltool_literal_0__'}; {@link #restore(String)} puts the original literals
+ * back into SQL produced from the slim statement, e.g. by a rewrite.
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class OffloadedSql {
+
+    private static final String SENTINEL_PREFIX = "'__sqltool_literal_";
+
+    private static final String SENTINEL_SUFFIX = "__'";
+
+    /**
+     * The SQL with large literals replaced by sentinels
+     */
+    private final String sql;
+
+    /**
+     * The offloaded literals including their quotes, indexed by sentinel number
+     */
+    private final List<String> literals;
+
+    private OffloadedSql(String sql, List<String> literals) {
+        this.sql = sql;
+        this.literals = literals;
+    }
+
+    /**
+     * Replaces string literals longer than the threshold with sentinels.
+     * Comments and quoted identifiers are skipped. Hex and bit literals, and literals
+     * whose end is ambiguous between standard and backslash escaping, are left in place.
+     *
+     * @param sql       the SQL statement
+     * @param threshold minimum literal length in characters to offload, 0 to disable
+     * @return the slim statement, or the statement itself if nothing was offloaded
+     */
+    public static OffloadedSql of(String sql, int threshold) {
+        if (sql == null || threshold <= 0 || sql.length() <= threshold || sql.contains(SENTINEL_PREFIX)) {
+            return new OffloadedSql(sql, List.of());
+        }
+        int length = sql.length();
+        List<String> literals = null;
+        StringBuilder result = null;
+        int copied = 0;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                int end = literalEnd(sql, i);
+                if (end - i > threshold && !isBinaryLiteral(sql, i) && !hasEscapedQuote(sql, i + 1, end - 1)) {
+                    if (result == null) {
+                        result = new StringBuilder();
+                        literals = new ArrayList<>();
+                    }
+                    result.append(sql, copied, i)
+                            .append(SENTINEL_PREFIX).append(literals.size()).append(SENTINEL_SUFFIX);
+                    literals.add(sql.substring(i, end));
+                    copied = end;
+                }
+                i = end;
+            } else if (c == '"' || c == '`') {
+                int end = sql.indexOf(c, i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i + 2);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                i++;
+            }
+        }
+        if (result == null) {
+            return new OffloadedSql(sql, List.of());
+        }
+        result.append(sql, copied, length);
+        return new OffloadedSql(result.toString(), List.copyOf(literals));
+    }
+
+    /**
+     * Finds the end of a string literal; doubled quotes and backslash escapes do not end it
+     *
+     * @return the position after the closing quote
+     */
+    private static int literalEnd(String sql, int start) {
+        int length = sql.length();
+        for (int i = start + 1; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '\'') {
+                if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                    i++;
+                } else {
+                    return i + 1;
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Checks for a hex or bit literal such as {@code X'0A'} or {@code b'01'}, whose content
+     * must stay valid digits for the statement to parse
+     */
+    private static boolean isBinaryLiteral(String sql, int quote) {
+        if (quote == 0) {
+            return false;
+        }
+        char prefix = Character.toUpperCase(sql.charAt(quote - 1));
+        return (prefix == 'X' || prefix == 'B')
+                && (quote == 1 || !Character.isJavaIdentifierPart(sql.charAt(quote - 2)));
+    }
+
+    /**
+     * Checks for a backslash-escaped quote, which ends the literal early for parsers
+     * that only accept doubled quotes
+     */
+    private static boolean hasEscapedQuote(String sql, int start, int end) {
+        for (int i = start; i < end - 1; i++) {
+            if (sql.charAt(i) == '\\' && sql.charAt(i + 1) == '\'') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getLiterals() {
+        return literals;
+    }
+
+    /**
+     * Checks whether any literal was offloaded
+     *
+     * @return true if the SQL contains sentinels
+     */
+    public boolean isOffloaded() {
+        return !literals.isEmpty();
+    }
+
+    /**
+     * Puts the offloaded literals back into SQL derived from the slim statement
+     *
+     * @param text SQL containing sentinels, e.g. a deparsed rewrite of {@link #getSql()}
+     * @return the SQL with the original literals
+     */
+    public String restore(String text) {
+        if (literals.isEmpty() || text == null) {
+            return text;
+        }
+        int index = text.indexOf(SENTINEL_PREFIX);
+        if (index < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length() + literalsLength());
+        int copied = 0;
+        while (index >= 0) {
+            int numberStart = index + SENTINEL_PREFIX.length();
+            int numberEnd = numberStart;
+            while (numberEnd < text.length() && Character.isDigit(text.charAt(numberEnd))) {
+                numberEnd++;
+            }
+            if (numberEnd > numberStart && text.startsWith(SENTINEL_SUFFIX, numberEnd)) {
+                int number = Integer.parseInt(text, numberStart, numberEnd, 10);
+                if (number < literals.size()) {
+                    result.append(text, copied, index).append(literals.get(number));
+                    copied = numberEnd + SENTINEL_SUFFIX.length();
+                }
+            }
+            index = text.indexOf(SENTINEL_PREFIX, numberStart);
+        }
+        result.append(text, copied, text.length());
+        return result.toString();
+    }
+
+    private int literalsLength() {
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.qwzhang01.sql.tool.wrapper;
+
+/**
+ * Complexity limits enforced when parsing and analyzing SQL statements.
+ * A value of 0 disables the corresponding limit; by default all limits are disabled.
+ *
+ * <ul>
+ *     <li>{@code maxLength}: maximum number of characters, checked before parsing</li>
+ *     <li>{@code maxDepth}: maximum parenthesis nesting depth (checked before parsing)
+ *     and maximum expression nesting depth during traversal</li>
+ *     <li>{@code maxTokens}: maximum number of lexical tokens, checked before parsing</li>
+ *     <li>{@code maxNodes}: maximum number of expression nodes visited during traversal</li>
+ *     <li>{@code timeBudgetMillis}: wall-clock budget applied to parsing and to traversal</li>
+ * </ul>
+ *
+ * @author Avin Zhang
+ * @since 1.2.0
+ */
+public class ParseLimits {
+
+    private int maxLength;
+
+    private int maxDepth;
+
+    private int maxTokens;
+
+    private int maxNodes;
+
+    private long timeBudgetMillis;
+
+    public ParseLimits() {
+    }
+
+    public ParseLimits(ParseLimits other) {
+        this.maxLength = other.maxLength;
+        this.maxDepth = other.maxDepth;
+        this.maxTokens = other.maxTokens;
+        this.maxNodes = other.maxNodes;
+        this.timeBudgetMillis = other.timeBudgetMillis;
+    }
+
+    /**
+     * Checks whether no limit is configured
+     *
+     * @return true if every limit is disabled
+     */
+    public boolean isUnlimited() {
+        return maxLength <= 0 && maxDepth <= 0 && maxTokens <= 0 && maxNodes <= 0 && timeBudgetMillis <= 0;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public void setMaxLength(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public void setMaxTokens(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ParseLimits{" +
+                "maxLength=" + maxLength +
+                ", maxDepth=" + maxDepth +
+                ", maxTokens=" + maxTokens +
+                ", maxNodes=" + maxNodes +
+                ", timeBudgetMillis=" + timeBudgetMillis +
+                '}';
+    }
+}
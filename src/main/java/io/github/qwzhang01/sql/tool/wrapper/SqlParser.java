@@ -1,11 +1,22 @@
 package io.github.qwzhang01.sql.tool.wrapper;
 
+import io.github.qwzhang01.sql.tool.cache.NegativeCache;
+import io.github.qwzhang01.sql.tool.exception.SqlComplexityException;
 import io.github.qwzhang01.sql.tool.exception.SqlIllegalException;
+import io.github.qwzhang01.sql.tool.monitor.ParseStatistics;
+import io.github.qwzhang01.sql.tool.monitor.SlowLog;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParser;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.parser.feature.Feature;
 import net.sf.jsqlparser.statement.Statement;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
 /**
  * SQL parser wrapper providing exception handling and singleton access.
  * This class wraps JSQLParser's CCJSqlParserUtil to provide consistent
@@ -17,9 +28,73 @@ import net.sf.jsqlparser.statement.Statement;
 public class SqlParser {
 
     /**
-     * Private constructor to prevent instantiation
+     * Default number of unparsable statements remembered by the negative cache
+     */
+    public static final int DEFAULT_NEGATIVE_CACHE_SIZE = 1024;
+
+    /**
+     * Default time-to-live of negative cache entries in minutes
+     */
+    public static final long DEFAULT_NEGATIVE_CACHE_TTL_MINUTES = 10;
+
+    /**
+     * Default minimum length of string literals offloaded before analysis
+     */
+    public static final int DEFAULT_LITERAL_OFFLOAD_THRESHOLD = 4096;
+
+    /**
+     * Time-out JSQLParser applies to a statement parse when none is configured
      */
-    private SqlParser() {
+    private static final long DEFAULT_PARSER_TIME_OUT_MILLIS =
+            ((Number) Feature.timeOut.getDefaultValue()).longValue();
+
+    /**
+     * Cache of statements known to be unparsable, null when disabled
+     */
+    private volatile NegativeCache negativeCache =
+            new NegativeCache(DEFAULT_NEGATIVE_CACHE_SIZE, DEFAULT_NEGATIVE_CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+
+    /**
+     * Complexity limits enforced on parsing and traversal
+     */
+    private volatile ParseLimits limits = new ParseLimits();
+
+    /**
+     * Minimum length of string literals swapped for sentinels before analysis, 0 to disable
+     */
+    private volatile int literalOffloadThreshold = DEFAULT_LITERAL_OFFLOAD_THRESHOLD;
+
+    /**
+     * Parse counters and latencies
+     */
+    private final ParseStatistics statistics = new ParseStatistics();
+
+    /**
+     * Whether parse attempts are timed and counted
+     */
+    private volatile boolean instrumented = true;
+
+    /**
+     * Statements whose parse, visit or deparse phase exceeded the slow threshold
+     */
+    private final SlowLog slowLog = new SlowLog();
+
+    /**
+     * Executor running the JSQLParser parse, null for a new executor per statement
+     */
+    private volatile ExecutorService parseExecutor;
+
+    /**
+     * Dialect features applied to every JSQLParser instance, null for the defaults
+     */
+    private volatile Consumer<CCJSqlParser> features;
+
+    /**
+     * Creates a parser with its own settings, negative cache and statistics. Most
+     * applications use the shared {@link #getInstance()} or the parser of a
+     * {@link io.github.qwzhang01.sql.tool.helper.SqlToolEngine}.
+     */
+    public SqlParser() {
     }
 
     /**
@@ -32,20 +107,258 @@ public class SqlParser {
     }
 
     /**
-     * Parses a SQL statement string into a Statement object
+     * Parses a SQL statement string into a Statement object.
+     * Statements that failed to parse before are rejected from the negative cache
+     * with a shared, stackless exception until their cache entry expires.
      *
      * @param sql the SQL statement to parse
      * @return the parsed Statement object
-     * @throws SqlIllegalException if the SQL cannot be parsed
+     * @throws SqlIllegalException    if the SQL cannot be parsed
+     * @throws SqlComplexityException if the SQL exceeds the configured {@link ParseLimits}
      */
     public Statement parse(String sql) {
+        return parse(sql, sql);
+    }
+
+    /**
+     * Parses a statement, checking the text limits on the text the caller passed in
+     *
+     * @param sql      the SQL statement to parse, possibly with offloaded literals
+     * @param original the statement as passed in by the caller
+     */
+    private Statement parse(String sql, String original) {
+        if (!instrumented) {
+            return doParse(sql, original);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
         try {
-            return CCJSqlParserUtil.parse(sql);
+            Statement statement = doParse(sql, original);
+            failed = false;
+            return statement;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            statistics.record(sql, nanos, failed);
+            slowLog.record(SlowLog.Phase.PARSE, sql, nanos);
+        }
+    }
+
+    private Statement doParse(String sql, String original) {
+        ParseLimits limits = this.limits;
+        ComplexityGuard.checkText(original, limits);
+
+        NegativeCache cache = negativeCache;
+        if (cache != null && sql != null) {
+            SqlIllegalException known = cache.get(sql);
+            if (known != null) {
+                if (instrumented) {
+                    statistics.recordNegativeCacheHit();
+                }
+                throw known;
+            }
+        }
+        Consumer<CCJSqlParser> features = this.features;
+        long budget = limits.getTimeBudgetMillis();
+        // time-out that applies to this parse: the budget, a dialect setting or JSQLParser's default
+        long[] timeOut = {DEFAULT_PARSER_TIME_OUT_MILLIS};
+        Consumer<CCJSqlParser> configurer = parser -> {
+            if (features != null) {
+                features.accept(parser);
+            }
+            if (budget > 0) {
+                parser.withTimeOut(budget);
+            }
+            if (parser.getConfiguration().getValue(Feature.timeOut) instanceof Number millis) {
+                timeOut[0] = millis.longValue();
+            }
+        };
+        long start = System.nanoTime();
+        try {
+            ExecutorService executor = parseExecutor;
+            if (executor != null) {
+                return CCJSqlParserUtil.parse(sql, executor, configurer);
+            }
+            return CCJSqlParserUtil.parse(sql, configurer);
         } catch (JSQLParserException e) {
-            throw new SqlIllegalException("Invalid SQL, cannot parse", e, sql);
+            if (e.getCause() instanceof TimeoutException) {
+                throw new SqlComplexityException(SqlComplexityException.Limit.TIME,
+                        timeOut[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            SqlIllegalException error = new SqlIllegalException("Invalid SQL, cannot parse", e, sql);
+            if (cache != null && sql != null) {
+                // a known-bad variant of the statement, e.g. with other whitespace
+                SqlIllegalException known = cache.getSimilar(sql);
+                if (known != null) {
+                    throw known;
+                }
+                cache.put(sql, error);
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * Sets whether parse attempts are timed and counted in {@link #getStatistics()}
+     *
+     * @param instrumented true to record parse statistics
+     */
+    public void setInstrumented(boolean instrumented) {
+        this.instrumented = instrumented;
+    }
+
+    public boolean isInstrumented() {
+        return instrumented;
+    }
+
+    /**
+     * Gets the counters and latencies of parse attempts, including attempts rejected by
+     * the negative cache or the complexity limits
+     *
+     * @return the parse statistics
+     */
+    public ParseStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets the log of slow statements. Parse times are reported while the parser is
+     * {@link #isInstrumented() instrumented}; the finders and rewriting helpers report
+     * visit and deparse times.
+     *
+     * @return the slow statement log
+     */
+    public SlowLog getSlowLog() {
+        return slowLog;
+    }
+
+    /**
+     * Parses a SQL statement for analysis only. String literals longer than the
+     * configured offload threshold are replaced by short sentinels before parsing (see
+     * {@link OffloadedSql}), so the returned statement is cheap to build but must not be
+     * used to produce SQL. Use {@link #offload(String)} when a rewrite is needed.
+     *
+     * @param sql the SQL statement to parse
+     * @return the parsed Statement object, with large literals replaced by sentinels
+     * @throws SqlIllegalException    if the SQL cannot be parsed
+     * @throws SqlComplexityException if the SQL exceeds the configured {@link ParseLimits}
+     */
+    public Statement parseForAnalysis(String sql) {
+        return parse(offload(sql).getSql(), sql);
+    }
+
+    /**
+     * Replaces string literals longer than the configured threshold with sentinels.
+     * Parse {@link OffloadedSql#getSql()} and pass SQL produced from it to
+     * {@link OffloadedSql#restore(String)} to get the original literals back.
+     *
+     * @param sql the SQL statement
+     * @return the slim statement
+     */
+    public OffloadedSql offload(String sql) {
+        return OffloadedSql.of(sql, literalOffloadThreshold);
+    }
+
+    /**
+     * Sets the minimum length of string literals offloaded before analysis
+     *
+     * @param threshold literal length in characters, 0 to disable offloading
+     */
+    public void setLiteralOffloadThreshold(int threshold) {
+        this.literalOffloadThreshold = Math.max(0, threshold);
+    }
+
+    public int getLiteralOffloadThreshold() {
+        return literalOffloadThreshold;
+    }
+
+    /**
+     * Sets the complexity limits enforced on parsing and traversal.
+     * A copy of the given limits is used, so later changes to the argument have no effect.
+     * The negative cache is cleared.
+     *
+     * @param limits the limits, null to disable all limits
+     */
+    public void setLimits(ParseLimits limits) {
+        this.limits = limits == null ? new ParseLimits() : new ParseLimits(limits);
+        clearNegativeCache();
+    }
+
+    /**
+     * Gets the complexity limits enforced on parsing and traversal
+     *
+     * @return a copy of the current limits
+     */
+    public ParseLimits getLimits() {
+        return new ParseLimits(limits);
+    }
+
+    /**
+     * Creates a guard enforcing the current limits on one AST traversal
+     *
+     * @return a new complexity guard
+     */
+    public ComplexityGuard newGuard() {
+        return new ComplexityGuard(limits);
+    }
+
+    /**
+     * Sets the executor running the JSQLParser parse. JSQLParser parses on a separate
+     * thread to enforce its time-out; without an executor it creates a single-thread
+     * executor per statement, which dominates the cost of short statements.
+     *
+     * @param executor the executor, shared by all parses, null for an executor per statement
+     */
+    public void setParseExecutor(ExecutorService executor) {
+        this.parseExecutor = executor;
+    }
+
+    public ExecutorService getParseExecutor() {
+        return parseExecutor;
+    }
+
+    /**
+     * Sets dialect features applied to every statement parse, e.g.
+     * {@code parser -> parser.withSquareBracketQuotation(true)}. The negative cache is
+     * cleared, since statements rejected under the previous features may parse now.
+     *
+     * @param features the feature configurer, null for the JSQLParser defaults
+     */
+    public void setFeatures(Consumer<CCJSqlParser> features) {
+        this.features = features;
+        clearNegativeCache();
+    }
+
+    private void clearNegativeCache() {
+        NegativeCache cache = negativeCache;
+        if (cache != null) {
+            cache.clear();
         }
     }
 
+    public Consumer<CCJSqlParser> getFeatures() {
+        return features;
+    }
+
+    /**
+     * Configures the negative cache of unparsable statements
+     *
+     * @param capacity maximum number of statements to remember, 0 to disable the cache
+     * @param ttl      time-to-live of an entry
+     * @param unit     unit of the time-to-live
+     */
+    public void setNegativeCache(int capacity, long ttl, TimeUnit unit) {
+        negativeCache = capacity <= 0 ? null : new NegativeCache(capacity, ttl, unit);
+    }
+
+    /**
+     * Gets the negative cache of unparsable statements
+     *
+     * @return the negative cache, or null if disabled
+     */
+    public NegativeCache getNegativeCache() {
+        return negativeCache;
+    }
+
     /**
      * Parses an SQL expression string into an Expression object
      *
@@ -61,6 +374,22 @@ public class SqlParser {
         }
     }
 
+    /**
+     * Parses an SQL expression string into an Expression object
+     *
+     * @param expression        the SQL expression to parse
+     * @param allowPartialParse false to reject expressions with trailing unparsed input
+     * @return the parsed Expression object
+     * @throws SqlIllegalException if the expression cannot be parsed
+     */
+    public Expression parseExpression(String expression, boolean allowPartialParse) {
+        try {
+            return CCJSqlParserUtil.parseExpression(expression, allowPartialParse);
+        } catch (JSQLParserException e) {
+            throw new SqlIllegalException("Invalid SQL, cannot parse", e, expression);
+        }
+    }
+
 
     private static class SqlParserHolder {
         private static final SqlParser INSTANCE = new SqlParser();
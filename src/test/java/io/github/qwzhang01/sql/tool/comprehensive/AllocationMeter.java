@@ -0,0 +1,83 @@
+package io.github.qwzhang01.sql.tool.comprehensive;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures heap bytes allocated by the current thread per call of an operation, using
+ * {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()}. Only
+ * allocations of the calling thread are counted, so work handed to other threads is
+ * not included; JSQLParser 5.1 builds the AST on a helper thread, for example.
+ */
+final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private AllocationMeter() {
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the JVM reports per-thread allocations
+     *
+     * @return true if {@link #bytesPerCall(Runnable, int)} can measure
+     */
+    static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * Runs an operation, first to warm up and fill caches, then measured
+     *
+     * @param operation the operation, e.g. one call over the next statement of a corpus
+     * @param calls     number of warm-up calls and of measured calls
+     * @return mean bytes allocated per measured call
+     */
+    static long bytesPerCall(Runnable operation, int calls) {
+        for (int i = 0; i < calls; i++) {
+            operation.run();
+        }
+        long overhead = measure(() -> {
+        }, calls);
+        return Math.max(measure(operation, calls) - overhead, 0) / calls;
+    }
+
+    private static long measure(Runnable operation, int calls) {
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < calls; i++) {
+            operation.run();
+        }
+        return THREADS.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    /**
+     * Writes bytes per call as JSON
+     *
+     * @param version the library version the figures belong to
+     * @param bytes   bytes per call by operation name
+     * @return the JSON document
+     */
+    static String toJson(String version, Map<String, Long> bytes) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"version\": \"").append(version).append("\",\n");
+        json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"bytesPerCall\": {\n");
+        int index = 0;
+        for (Map.Entry<String, Long> entry : bytes.entrySet()) {
+            json.append(String.format(Locale.ROOT, "    \"%s\": %d", entry.getKey(), entry.getValue()));
+            json.append(++index < bytes.size() ? ",\n" : "\n");
+        }
+        json.append("  }\n}\n");
+        return json.toString();
+    }
+}
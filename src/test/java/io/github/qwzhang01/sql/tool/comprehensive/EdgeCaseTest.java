@@ -1,13 +1,35 @@
 package io.github.qwzhang01.sql.tool.comprehensive;
 
+import io.github.qwzhang01.sql.tool.cache.AnalysisCache;
+import io.github.qwzhang01.sql.tool.cache.LruCache;
+import io.github.qwzhang01.sql.tool.cache.SingleFlight;
+import io.github.qwzhang01.sql.tool.exception.InFlightTimeoutException;
 import io.github.qwzhang01.sql.tool.exception.SqlIllegalException;
+import io.github.qwzhang01.sql.tool.helper.ParserHelper;
 import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ParamFinder;
 import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import io.github.qwzhang01.sql.tool.model.AnalysisResult;
+import io.github.qwzhang01.sql.tool.model.BulkInsert;
+import io.github.qwzhang01.sql.tool.model.SqlAnalysis;
+import io.github.qwzhang01.sql.tool.model.SqlParam;
+import io.github.qwzhang01.sql.tool.model.SqlParamRun;
+import io.github.qwzhang01.sql.tool.model.SqlTable;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -190,4 +212,229 @@ public class EdgeCaseTest {
             assertEquals("users", tables.iterator().next().getName());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Unsupported statement result mode test")
+    public void testUnsupportedResultMode() {
+        String sql = "CREATE INDEX idx_name ON users (name)";
+
+        assertThrows(UnsupportedOperationException.class, () -> ParserHelper.getTables(sql));
+
+        AnalysisResult<List<SqlTable>> tables = ParserHelper.tryGetTables(sql);
+        assertFalse(tables.isSupported());
+        assertEquals("CreateIndex", tables.getUnsupportedType());
+        assertNull(tables.getValue());
+
+        AnalysisResult<List<SqlParam>> params = ParserHelper.tryGetParam("SET autocommit = 1");
+        assertFalse(params.isSupported());
+        assertEquals("SetStatement", params.getUnsupportedType());
+
+        AnalysisResult<List<SqlTable>> supported = ParserHelper.tryGetTables("SELECT * FROM users");
+        assertTrue(supported.isSupported());
+        assertEquals(1, supported.getValue().size());
+    }
+
+    @Test
+    @DisplayName("Deeply chained conditions test")
+    public void testDeeplyChainedConditions() {
+        StringBuilder sql = new StringBuilder("SELECT * FROM users u WHERE u.id = ?");
+        for (int i = 0; i < 20000; i++) {
+            sql.append(i % 2 == 0 ? " OR u.id = ?" : " AND u.status = ?");
+        }
+
+        assertDoesNotThrow(() -> {
+            var tables = TableFinder.findTables(sql.toString());
+            var params = ParamFinder.find(sql.toString());
+
+            assertEquals(1, tables.size());
+            assertEquals(20001, params.size());
+        });
+    }
+
+    @Test
+    @DisplayName("Test run-length parameters of huge IN lists")
+    public void testHugeInListParamRuns() {
+        String placeholders = String.join(", ", Collections.nCopies(20000, "?"));
+        String sql = "SELECT * FROM orders o WHERE o.status = ? AND o.id IN (" + placeholders + ") AND o.type = ?";
+
+        List<SqlParamRun> runs = ParserHelper.getParamRuns(sql);
+        assertEquals(3, runs.size());
+        assertEquals(new SqlParamRun("status", "o", 1, 1), runs.get(0));
+        assertEquals(new SqlParamRun("id", "o", 2, 20001), runs.get(1));
+        assertEquals(new SqlParamRun("type", "o", 20002, 20002), runs.get(2));
+
+        // the expanded form stays available and agrees with the runs
+        List<SqlParam> params = ParserHelper.getParam(sql);
+        assertEquals(20002, params.size());
+        assertTrue(params.stream().filter(p -> runs.get(1).contains(p.getIndex()))
+                .allMatch(p -> "id".equals(p.getColumn())));
+
+        // literals inside the list do not break the index sequence, adjacent runs merge
+        List<SqlParamRun> mixed = ParserHelper.getParamRuns(
+                "SELECT * FROM orders WHERE id IN (?, ?, 3, ?) OR code = ?");
+        assertEquals(2, mixed.size());
+        assertEquals(1, mixed.get(0).getFromIndex());
+        assertEquals(3, mixed.get(0).getToIndex());
+        assertEquals("code", mixed.get(1).getColumn());
+    }
+
+    @Test
+    @DisplayName("Test streaming recognition of multi-row INSERT statements")
+    public void testBulkInsert() {
+        String rows = String.join(", ", Collections.nCopies(50000, "(?, 'web', ?, NULL)"));
+        String sql = "INSERT INTO orders (id, source, amount, remark) VALUES " + rows + ";";
+
+        BulkInsert insert = ParserHelper.getBulkInsert(sql);
+        assertNotNull(insert);
+        assertEquals("orders", insert.getTable());
+        assertEquals(50000, insert.getRowCount());
+        assertEquals(List.of("id", "amount"), insert.getParamColumns());
+        assertEquals(100000, insert.getParamCount());
+        assertEquals("amount", insert.getColumn(100000));
+        assertEquals(49999, insert.getRow(100000));
+
+        // agrees with the full parse on a small statement
+        String small = "INSERT INTO orders (id, source, amount) VALUES (?, 'a', ?), (?, 'b', ?)";
+        List<SqlParam> params = ParserHelper.getParam(small);
+        BulkInsert smallInsert = ParserHelper.getBulkInsert(small);
+        for (SqlParam param : params) {
+            assertEquals(param.getColumn(), smallInsert.getColumn(param.getIndex()));
+        }
+
+        // other shapes are left to the parser, broken rows are rejected
+        assertNull(ParserHelper.getBulkInsert("INSERT INTO orders VALUES (?, ?)"));
+        assertNull(ParserHelper.getBulkInsert("INSERT INTO orders (id, amount) VALUES (?, ? + 1)"));
+        assertNull(ParserHelper.getBulkInsert("INSERT INTO orders (id, amount) VALUES (?, ?), (1, ?)"));
+        assertNull(ParserHelper.getBulkInsert("INSERT INTO orders (id) VALUES (?) ON DUPLICATE KEY UPDATE id = 1"));
+        assertThrows(SqlIllegalException.class,
+                () -> ParserHelper.getBulkInsert("INSERT INTO orders (id, amount) VALUES (?, ?), (?)"));
+    }
+
+    @Test
+    @DisplayName("Test weight-based eviction with soft tier")
+    public void testWeightedCache() {
+        LruCache<String, String> cache = new LruCache<>(100, false, 1000, (key, value) -> value.length(), true);
+        for (int i = 0; i < 5; i++) {
+            cache.put("sql" + i, "x".repeat(300));
+        }
+        // three entries fit the budget, the two eldest moved to the soft tier
+        assertEquals(3, cache.size());
+        assertEquals(900, cache.getWeight());
+        assertEquals(2, cache.getSoftSize());
+        assertEquals(0, cache.getEvictions());
+
+        // a soft tier hit moves the entry back and demotes the least recently used one
+        assertNotNull(cache.get("sql0"));
+        assertEquals(1, cache.getSoftHits());
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.getSoftSize());
+
+        // values heavier than the whole budget are never cached
+        cache.put("huge", "x".repeat(2000));
+        assertNull(cache.get("huge"));
+        assertEquals(1, cache.getRejections());
+
+        LruCache<String, String> hard = new LruCache<>(100, false, 1000, (key, value) -> value.length(), false);
+        for (int i = 0; i < 5; i++) {
+            hard.put("sql" + i, "x".repeat(300));
+        }
+        assertEquals(2, hard.getEvictions());
+        assertNull(hard.get("sql0"));
+
+        SqlAnalysis analysis = ParserHelper.analyze("SELECT * FROM users WHERE id = ?");
+        LruCache<String, SqlAnalysis> shared = ParserHelper.getAnalysisCache().getShared();
+        assertTrue(analysis.getEstimatedSize() > 0);
+        assertTrue(shared.getWeight() >= analysis.getEstimatedSize());
+        assertTrue(shared.getWeight() <= shared.getMaxWeight());
+    }
+    @Test
+    @DisplayName("Test coalescing of concurrent cache misses")
+    public void testSingleFlight() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        AnalysisCache<String> cache = new AnalysisCache<>(16, sql -> {
+            loads.incrementAndGet();
+            awaitQuietly(release);
+            return sql.toUpperCase();
+        });
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get(new String("select 1"))));
+            }
+            // wait until all threads but the computing one are waiting
+            while (cache.getCoalesced() < threads - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("SELECT 1", result.get());
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getMisses());
+
+            // a failure reaches every waiting thread, and nothing is cached
+            CountDownLatch failing = new CountDownLatch(1);
+            AnalysisCache<String> bad = new AnalysisCache<>(16, sql -> {
+                awaitQuietly(failing);
+                throw new SqlIllegalException("Invalid SQL, cannot parse", null, sql);
+            });
+            Future<String> first = executor.submit(() -> bad.get("select bad"));
+            Future<String> second = executor.submit(() -> bad.get(new String("select bad")));
+            while (bad.getCoalesced() < 1) {
+                Thread.sleep(5);
+            }
+            failing.countDown();
+            assertInstanceOf(SqlIllegalException.class, assertThrows(ExecutionException.class, first::get).getCause());
+            assertInstanceOf(SqlIllegalException.class, assertThrows(ExecutionException.class, second::get).getCause());
+            assertEquals(0, bad.size());
+
+            // waiters give up after the configured timeout
+            CountDownLatch slow = new CountDownLatch(1);
+            AnalysisCache<String> slowCache = new AnalysisCache<>(16, sql -> {
+                awaitQuietly(slow);
+                return sql;
+            });
+            slowCache.setWaitTimeout(50, TimeUnit.MILLISECONDS);
+            Future<String> leader = executor.submit(() -> slowCache.get("select 2"));
+            while (slowCache.getMisses() == 0) {
+                Thread.sleep(5);
+            }
+            InFlightTimeoutException timeout = assertThrows(InFlightTimeoutException.class,
+                    () -> slowCache.get(new String("select 2")));
+            assertEquals(50, timeout.getTimeoutMillis());
+            slow.countDown();
+            assertEquals("select 2", leader.get());
+
+            // the waiter's timeout does not affect the computing thread
+            CountDownLatch computing = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+            SingleFlight<String, String> flight = new SingleFlight<>(20, TimeUnit.MILLISECONDS);
+            Future<String> owner = executor.submit(() -> flight.execute("k", key -> {
+                computing.countDown();
+                awaitQuietly(finish);
+                return "v";
+            }));
+            computing.await();
+            assertThrows(InFlightTimeoutException.class, () -> flight.execute("k", key -> "other"));
+            assertEquals(1, flight.getCoalesced());
+            finish.countDown();
+            assertEquals("v", owner.get());
+            assertEquals(0, flight.getInFlight());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
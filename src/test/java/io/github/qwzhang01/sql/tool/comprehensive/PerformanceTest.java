@@ -1,17 +1,54 @@
 package io.github.qwzhang01.sql.tool.comprehensive;
 
+import io.github.qwzhang01.sql.tool.cache.LruCache;
 import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.ParamExtractor;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ExpressionWalker;
 import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ParamFinder;
 import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import io.github.qwzhang01.sql.tool.model.ExtractedSql;
 import io.github.qwzhang01.sql.tool.model.SqlParam;
 import io.github.qwzhang01.sql.tool.model.SqlTable;
+import io.github.qwzhang01.sql.tool.monitor.LatencyHistogram;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.conditional.XorExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
-
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -236,4 +273,530 @@ public class PerformanceTest {
         // Concurrent execution should complete within 3 seconds
         assertTrue(duration < 3000, "Concurrent parsing took too long: " + duration + "ms");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Mixed DDL/DML unsupported statement throughput test")
+    public void testUnsupportedStatementThroughput() {
+        String[] sqls = {
+                "CREATE INDEX idx_name ON users (name)",
+                "SELECT u.name FROM users u WHERE u.id = ?",
+                "SET autocommit = 1",
+                "UPDATE users SET name = ? WHERE id = ?",
+                "SHOW COLUMNS FROM users",
+                "EXECUTE refresh_stats"
+        };
+        Statement[] statements = new Statement[sqls.length];
+        for (int i = 0; i < sqls.length; i++) {
+            statements[i] = SqlParser.getInstance().parse(sqls[i]);
+        }
+
+        int rounds = 20000;
+        int unsupported = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            for (Statement statement : statements) {
+                try {
+                    new TableFinder<>().getTablesOrOtherSources(statement);
+                } catch (UnsupportedOperationException e) {
+                    unsupported++;
+                }
+            }
+        }
+        long throwingNanos = System.nanoTime() - startTime;
+
+        int lenientUnsupported = 0;
+        startTime = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            for (Statement statement : statements) {
+                TableFinder<?> finder = new TableFinder<>();
+                finder.setLenient(true);
+                finder.getTablesOrOtherSources(statement);
+                if (finder.getUnsupported() != null) {
+                    lenientUnsupported++;
+                }
+            }
+        }
+        long lenientNanos = System.nanoTime() - startTime;
+
+        assertEquals(unsupported, lenientUnsupported);
+        double operations = (double) rounds * statements.length;
+        System.out.printf("Mixed workload: throwing %.0f ops/s, lenient %.0f ops/s%n",
+                operations * 1_000_000_000L / throwingNanos, operations * 1_000_000_000L / lenientNanos);
+    }
+
+    @Test
+    @DisplayName("Placeholder scanner versus regex pre-processing test")
+    public void testPlaceholderScannerThroughput() {
+        StringBuilder builder = new StringBuilder("SELECT * FROM orders o WHERE o.deleted = 0");
+        for (int i = 0; i < 200; i++) {
+            builder.append(" AND (o.field").append(i).append(" = #{ew.paramNameValuePairs.MPGENVAL").append(i)
+                    .append("} OR o.note").append(i).append(" LIKE '%x%')");
+        }
+        String sql = builder.toString();
+        Pattern pattern = Pattern.compile("#\\{([^}]+)\\}");
+
+        for (int i = 0; i < 500; i++) {
+            ParamExtractor.preProcessSql(sql, pattern);
+            ParamExtractor.extract(sql);
+        }
+
+        int rounds = 2000;
+        String regexResult = null;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            regexResult = ParamExtractor.preProcessSql(sql, pattern);
+        }
+        long regexNanos = System.nanoTime() - startTime;
+
+        ExtractedSql scanned = null;
+        startTime = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            scanned = ParamExtractor.extract(sql);
+        }
+        long scannerNanos = System.nanoTime() - startTime;
+
+        assertEquals(regexResult, scanned.getSql());
+        assertEquals(200, scanned.getParamCount());
+        System.out.printf("Placeholder pre-processing (%d chars): regex %.0f ops/s, scanner %.0f ops/s%n", sql.length(),
+                rounds * 1_000_000_000.0 / regexNanos, rounds * 1_000_000_000.0 / scannerNanos);
+    }
+
+    @Test
+    @DisplayName("Cache admission hit rate simulation")
+    public void testCacheAdmissionSimulation() throws IOException {
+        // replays a recorded trace (one statement per line) if -Dsqltool.trace is given
+        String tracePath = System.getProperty("sqltool.trace");
+        List<String> trace = tracePath != null ? Files.readAllLines(Path.of(tracePath)) : syntheticTrace();
+        int capacity = 256;
+
+        double lruHitRate = simulate(trace, new LruCache<>(capacity));
+        double tinyLfuHitRate = simulate(trace, new LruCache<>(capacity, true));
+
+        System.out.printf("Cache simulation (%d requests, capacity %d): LRU hit rate %.1f%%, TinyLFU hit rate %.1f%%%n",
+                trace.size(), capacity, lruHitRate * 100, tinyLfuHitRate * 100);
+        if (tracePath == null) {
+            assertTrue(tinyLfuHitRate > lruHitRate);
+        }
+    }
+
+    private static double simulate(List<String> trace, LruCache<String, String> cache) {
+        int hits = 0;
+        for (String sql : trace) {
+            if (cache.get(sql) != null) {
+                hits++;
+            } else {
+                cache.put(sql, sql);
+            }
+        }
+        return (double) hits / trace.size();
+    }
+
+    /**
+     * 500 OLTP statements with skewed popularity, interleaved with ad-hoc reporting
+     * queries that each run once
+     */
+    private static List<String> syntheticTrace() {
+        Random random = new Random(42);
+        int hotStatements = 500;
+        double[] cumulative = new double[hotStatements];
+        double total = 0;
+        for (int i = 0; i < hotStatements; i++) {
+            total += 1.0 / Math.pow(i + 1, 0.9);
+            cumulative[i] = total;
+        }
+        List<String> trace = new ArrayList<>();
+        int adHoc = 0;
+        for (int i = 0; i < 200_000; i++) {
+            if (random.nextInt(3) == 0) {
+                trace.add("SELECT region, SUM(amount) FROM sales WHERE report_id = " + adHoc++ + " GROUP BY region");
+            } else {
+                int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                int statement = index < 0 ? -index - 1 : index;
+                trace.add("SELECT * FROM orders WHERE id = ? AND variant = " + statement);
+            }
+        }
+        return trace;
+    }
+
+    @Test
+    @DisplayName("Scalability across thread counts and contention profile")
+    public void testScalability() throws Exception {
+        // -Dsqltool.scalability.threads and -Dsqltool.scalability.millis size the run,
+        // e.g. 64 threads on a 64-core host
+        int maxThreads = Integer.getInteger("sqltool.scalability.threads",
+                Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        long millis = Long.getLong("sqltool.scalability.millis", 300L);
+        List<String> sqls = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            sqls.add("SELECT u.name, o.total FROM users u JOIN orders o ON o.user_id = u.id"
+                    + " WHERE u.status = ? AND o.variant = " + i);
+        }
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        boolean contentionMonitoring = threadBean.isThreadContentionMonitoringSupported()
+                && threadBean.isThreadContentionMonitoringEnabled();
+        if (threadBean.isThreadContentionMonitoringSupported()) {
+            threadBean.setThreadContentionMonitoringEnabled(true);
+        }
+        try {
+            ExecutorService warmUp = Executors.newSingleThreadExecutor();
+            try {
+                runScalabilityLevel(warmUp, 1, 200, sqls, null);
+            } finally {
+                warmUp.shutdownNow();
+            }
+
+            Map<String, Integer> hotspots = new HashMap<>();
+            double baseline = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                try {
+                    ScalabilityLevel level = runScalabilityLevel(executor, threads, millis, sqls, hotspots);
+                    if (threads == 1) {
+                        baseline = level.opsPerSecond;
+                    }
+                    System.out.printf("Scalability %3d platform threads: %.0f ops/s, efficiency %.0f%%, blocked %d times for %d ms%n",
+                            threads, level.opsPerSecond, level.opsPerSecond / (threads * baseline) * 100,
+                            level.blockedCount, level.blockedMillis);
+                    assertTrue(level.opsPerSecond > 0);
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual == null) {
+                System.out.println("Scalability on virtual threads skipped, they require Java 21");
+            } else {
+                try {
+                    ScalabilityLevel level = runScalabilityLevel(virtual, maxThreads, millis, sqls, null);
+                    System.out.printf("Scalability %3d virtual threads: %.0f ops/s%n", maxThreads, level.opsPerSecond);
+                } finally {
+                    virtual.shutdownNow();
+                }
+            }
+
+            hotspots.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(5)
+                    .forEach(e -> System.out.printf("Contention hotspot, %d samples: %s%n", e.getValue(), e.getKey()));
+        } finally {
+            if (threadBean.isThreadContentionMonitoringSupported()) {
+                threadBean.setThreadContentionMonitoringEnabled(contentionMonitoring);
+            }
+        }
+    }
+
+    private record ScalabilityLevel(double opsPerSecond, long blockedCount, long blockedMillis) {
+    }
+
+    /**
+     * Runs a mix of ParserHelper operations on a number of tasks for a fixed time, sampling
+     * the workers every millisecond for monitors and locks they are blocked on
+     */
+    private static ScalabilityLevel runScalabilityLevel(ExecutorService executor, int threads, long millis,
+                                                        List<String> sqls, Map<String, Integer> hotspots) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder ops = new LongAdder();
+        Set<Long> workers = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            int seed = i * 7;
+            futures.add(executor.submit(() -> {
+                workers.add(Thread.currentThread().getId());
+                for (int n = seed; running.get(); n++) {
+                    String sql = sqls.get(n % sqls.size());
+                    switch (n & 3) {
+                        case 0 -> ParserHelper.getTables(sql);
+                        case 1 -> ParserHelper.getParam(sql);
+                        case 2 -> ParserHelper.analyze(sql);
+                        default -> ParserHelper.addWhere(sql, "o.deleted = 0");
+                    }
+                    ops.increment();
+                }
+                return null;
+            }));
+        }
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < deadline) {
+            if (hotspots != null) {
+                long[] ids = workers.stream().mapToLong(Long::longValue).toArray();
+                for (ThreadInfo info : threadBean.getThreadInfo(ids, 16)) {
+                    if (info != null && info.getLockName() != null && info.getThreadState() != Thread.State.RUNNABLE) {
+                        // lock class rather than instance, so that per-call locks add up
+                        String lock = info.getLockName().replaceFirst("@[0-9a-f]+$", "");
+                        hotspots.merge(info.getThreadState() + " on " + lock + " at " + libraryFrame(info.getStackTrace()),
+                                1, Integer::sum);
+                    }
+                }
+            }
+            Thread.sleep(1);
+        }
+        running.set(false);
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double opsPerSecond = ops.sum() * 1_000_000_000.0 / (System.nanoTime() - start);
+
+        long blockedCount = 0;
+        long blockedMillis = 0;
+        for (long id : workers) {
+            ThreadInfo info = threadBean.getThreadInfo(id);
+            if (info != null) {
+                blockedCount += info.getBlockedCount();
+                blockedMillis += Math.max(info.getBlockedTime(), 0);
+            }
+        }
+        return new ScalabilityLevel(opsPerSecond, blockedCount, blockedMillis);
+    }
+
+    private static String libraryFrame(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (frame.getClassName().startsWith("io.github.qwzhang01.sql.tool")) {
+                return frame.toString();
+            }
+        }
+        return stack.length > 0 ? stack[0].toString() : "unknown";
+    }
+
+    /**
+     * Creates a virtual thread per task executor when running on Java 21 or later
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Core path regression gate against the checked-in baseline")
+    public void testRegressionGate() throws IOException {
+        // the comparison flags large, significant slowdowns only
+        Map<String, RegressionBenchmark.Result> before = Map.of(
+                "parse", new RegressionBenchmark.Result(1000, 20, 5, 1.0, 0.02),
+                "merge", new RegressionBenchmark.Result(1000, 300, 5, 1.0, 0.3));
+        Map<String, RegressionBenchmark.Result> after = Map.of(
+                "parse", new RegressionBenchmark.Result(700, 20, 5, 0.7, 0.02),
+                "merge", new RegressionBenchmark.Result(700, 300, 5, 0.7, 0.3));
+        List<String> flagged = RegressionBenchmark.compare(before, after, 0.15);
+        assertEquals(1, flagged.size());
+        assertTrue(flagged.get(0).startsWith("parse: 30.0% slower"));
+        assertEquals(before.keySet(), RegressionBenchmark.fromJson(new RegressionBenchmark(1, 1).toJson("test", before)).keySet());
+
+        // runs in the benchmark-gate surefire execution, which fails the build on regressions
+        // unless -Dsqltool.benchmark.gate=false; -Dsqltool.benchmark.version names the result
+        // file and -Dsqltool.benchmark.updateBaseline=true replaces the checked-in baseline
+        String version = System.getProperty("sqltool.benchmark.version", "SNAPSHOT");
+        RegressionBenchmark benchmark = new RegressionBenchmark(
+                Integer.getInteger("sqltool.benchmark.samples", 20), Long.getLong("sqltool.benchmark.millis", 250L));
+        Map<String, RegressionBenchmark.Result> results = benchmark.run();
+        String json = benchmark.toJson(version, results);
+        Path output = Path.of("target", "benchmarks", "benchmark-" + version + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, json);
+        results.forEach((name, result) -> System.out.printf("Benchmark %s: %.0f ops/s +- %.0f, normalized %.4f%n",
+                name, result.opsPerSecond(), result.stddev(), result.normalized()));
+
+        if (Boolean.getBoolean("sqltool.benchmark.updateBaseline")) {
+            Files.writeString(Path.of("src", "test", "resources", "benchmark-baseline.json"), json);
+            return;
+        }
+        try (InputStream in = getClass().getResourceAsStream("/benchmark-baseline.json")) {
+            assertNotNull(in, "benchmark-baseline.json is missing from the test resources");
+            Map<String, RegressionBenchmark.Result> baseline = RegressionBenchmark.fromJson(
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            // a baseline too noisy to detect a 30% slowdown must be re-recorded
+            baseline.forEach((name, result) -> assertTrue(RegressionBenchmark.detectableSlowdown(result) <= 0.3,
+                    "Baseline of " + name + " cannot detect a 30% slowdown: " + result));
+            double tolerance = Double.parseDouble(System.getProperty("sqltool.benchmark.tolerance", "0.15"));
+            List<String> regressions = RegressionBenchmark.compare(baseline, results, tolerance);
+            regressions.forEach(regression -> System.out.println("Benchmark regression " + regression));
+            if (Boolean.getBoolean("sqltool.benchmark.gate")) {
+                assertTrue(regressions.isEmpty(), "Performance regressions against baseline: " + regressions);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Bytes allocated per ParserHelper call")
+    public void testAllocationPerCall() throws IOException {
+        Assumptions.assumeTrue(AllocationMeter.isSupported(), "per-thread allocation accounting is not supported");
+        String[] corpus = RegressionBenchmark.CORPUS;
+        String[] named = new String[corpus.length];
+        for (int i = 0; i < corpus.length; i++) {
+            named[i] = corpus[i].replace("?", "#{p}");
+        }
+        int calls = 200;
+        int[] next = new int[1];
+        Map<String, Runnable> operations = new LinkedHashMap<>();
+        operations.put("getTables", () -> ParserHelper.getTables(corpus[next[0]++ % corpus.length]));
+        operations.put("getParam", () -> ParserHelper.getParam(corpus[next[0]++ % corpus.length]));
+        operations.put("getParamRuns", () -> ParserHelper.getParamRuns(corpus[next[0]++ % corpus.length]));
+        operations.put("getSpecParam", () -> ParserHelper.getSpecParam(named[next[0]++ % named.length]));
+        operations.put("tryGetTables", () -> ParserHelper.tryGetTables(corpus[next[0]++ % corpus.length]));
+        operations.put("tryGetParam", () -> ParserHelper.tryGetParam(corpus[next[0]++ % corpus.length]));
+        operations.put("analyze", () -> ParserHelper.analyze(corpus[next[0]++ % corpus.length]));
+        operations.put("getBulkInsert", () -> ParserHelper.getBulkInsert(corpus[next[0]++ % corpus.length]));
+        operations.put("addWhere", () -> ParserHelper.addWhere(corpus[next[0]++ % 2], "u.tenant_id = ?"));
+        operations.put("addJoinAndWhere", () -> ParserHelper.addJoinAndWhere(corpus[next[0]++ % 2],
+                "LEFT JOIN accounts a ON a.user_id = u.id", "u.tenant_id = ?"));
+
+        Map<String, Long> bytes = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> operation : operations.entrySet()) {
+            bytes.put(operation.getKey(), AllocationMeter.bytesPerCall(operation.getValue(), calls));
+            System.out.printf("Allocation %s: %,d bytes/call%n", operation.getKey(), bytes.get(operation.getKey()));
+        }
+        String version = System.getProperty("sqltool.benchmark.version", "SNAPSHOT");
+        Path output = Path.of("target", "benchmarks", "allocation-" + version + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, AllocationMeter.toJson(version, bytes));
+
+        // budgets of single statements
+        StringBuilder predicates = new StringBuilder("SELECT * FROM users u WHERE u.c0 = ?");
+        for (int i = 1; i < 10; i++) {
+            predicates.append(" AND u.c").append(i).append(" = ?");
+        }
+        String tenPredicates = predicates.toString();
+        long getParamBytes = AllocationMeter.bytesPerCall(() -> ParserHelper.getParam(tenPredicates), calls);
+        assertTrue(getParamBytes < 64 * 1024, "getParam on a 10-predicate SELECT allocated " + getParamBytes + " bytes");
+        long analyzeBytes = AllocationMeter.bytesPerCall(() -> ParserHelper.analyze(tenPredicates), calls);
+        System.out.printf("Allocation on a 10-predicate SELECT: getParam %,d bytes/call, cached analyze %,d bytes/call%n",
+                getParamBytes, analyzeBytes);
+        assertTrue(analyzeBytes < 1024, "cached analyze allocated " + analyzeBytes + " bytes");
+    }
+
+    @Test
+    @DisplayName("Iterative chain walker versus recursive visit test")
+    public void testChainWalkerThroughput() {
+        StringBuilder deep = new StringBuilder("SELECT * FROM t WHERE c0 = 0");
+        for (int i = 1; i < 1000; i++) {
+            deep.append(i % 3 == 0 ? " OR " : " AND ").append('c').append(i).append(" = ").append(i);
+        }
+        Map<String, Expression> chains = new LinkedHashMap<>();
+        chains.put("deep", whereOf(deep.toString()));
+        chains.put("wide", whereOf("SELECT * FROM t WHERE " + balancedPredicate(0, 1000)));
+
+        for (Map.Entry<String, Expression> chain : chains.entrySet()) {
+            Expression where = chain.getValue();
+            IterativeCounter iterative = new IterativeCounter();
+            RecursiveCounter recursive = new RecursiveCounter();
+            for (int i = 0; i < 2000; i++) {
+                where.accept(iterative, null);
+                where.accept(recursive, null);
+            }
+            assertEquals(iterative.count, recursive.count);
+
+            // best of several rounds, alternating, so that both sides see the same machine state
+            int rounds = 500;
+            long iterativeNanos = Long.MAX_VALUE;
+            long recursiveNanos = Long.MAX_VALUE;
+            for (int sample = 0; sample < 7; sample++) {
+                long startTime = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    where.accept(iterative, null);
+                }
+                iterativeNanos = Math.min(iterativeNanos, System.nanoTime() - startTime);
+                startTime = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    where.accept(recursive, null);
+                }
+                recursiveNanos = Math.min(recursiveNanos, System.nanoTime() - startTime);
+            }
+            System.out.printf("Chain walk (%s, 1000 terms): iterative %.0f ops/s, recursive %.0f ops/s%n", chain.getKey(),
+                    rounds * 1_000_000_000.0 / iterativeNanos, rounds * 1_000_000_000.0 / recursiveNanos);
+            // at least as fast, with a margin for timer and JIT noise on balanced trees
+            // where both sides are close
+            assertTrue(iterativeNanos <= recursiveNanos * 1.25, chain.getKey() + " chain: iterative walk slower than recursive, "
+                    + iterativeNanos / rounds + " ns vs " + recursiveNanos / rounds + " ns");
+        }
+    }
+
+    private static Expression whereOf(String sql) {
+        return ((PlainSelect) SqlParser.getInstance().parse(sql)).getWhere();
+    }
+
+    /**
+     * Builds a balanced tree of parenthesized AND/OR predicates over terms from (inclusive) to to (exclusive)
+     */
+    private static String balancedPredicate(int from, int to) {
+        if (to - from == 1) {
+            return "c" + from + " = " + from;
+        }
+        int middle = (from + to) >>> 1;
+        return "(" + balancedPredicate(from, middle) + ((to - from) % 2 == 0 ? " AND " : " OR ")
+                + balancedPredicate(middle, to) + ")";
+    }
+
+    /**
+     * Counts comparisons, unrolling AND/OR/XOR chains with an {@link ExpressionWalker} as the finders do
+     */
+    private static class IterativeCounter extends ExpressionVisitorAdapter<Void> {
+
+        private final ExpressionWalker walker = new ExpressionWalker();
+
+        private long count;
+
+        @Override
+        public <S> Void visit(AndExpression expression, S context) {
+            walker.walk(expression, this, null);
+            return null;
+        }
+
+        @Override
+        public <S> Void visit(OrExpression expression, S context) {
+            walker.walk(expression, this, null);
+            return null;
+        }
+
+        @Override
+        public <S> Void visit(XorExpression expression, S context) {
+            walker.walk(expression, this, null);
+            return null;
+        }
+
+        @Override
+        public <S> Void visit(EqualsTo expression, S context) {
+            count++;
+            return null;
+        }
+    }
+
+    /**
+     * Counts comparisons with the recursive traversal of {@link ExpressionVisitorAdapter}
+     */
+    private static class RecursiveCounter extends ExpressionVisitorAdapter<Void> {
+
+        private long count;
+
+        @Override
+        public <S> Void visit(EqualsTo expression, S context) {
+            count++;
+            return null;
+        }
+    }
+
+    @Test
+    @DisplayName("Latency histogram recording cost")
+    public void testHistogramRecordingCost() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int rounds = 5_000_000;
+        for (int i = 0; i < rounds; i++) {
+            histogram.record(i & 0xfffff);
+        }
+        histogram.reset();
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            histogram.record(i & 0xfffff);
+        }
+        long nanos = System.nanoTime() - startTime;
+
+        assertEquals(rounds, histogram.getCount());
+        System.out.printf("Histogram recording: %.1f ns/op%n", (double) nanos / rounds);
+    }
+}
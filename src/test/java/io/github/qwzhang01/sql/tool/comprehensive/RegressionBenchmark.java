@@ -0,0 +1,270 @@
+package io.github.qwzhang01.sql.tool.comprehensive;
+
+import io.github.qwzhang01.sql.tool.helper.SqlToolEngine;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ParamFinder;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+import net.sf.jsqlparser.statement.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Throughput benchmarks of the core paths (parse, TableFinder, ParamFinder and merge)
+ * with a JSON result format for per-release baselines. Every benchmark is sampled
+ * several times; throughput is also expressed relative to a fixed CPU-bound calibration
+ * loop measured in the same round, so that baselines recorded on one machine remain
+ * comparable on another.
+ */
+final class RegressionBenchmark {
+
+    /**
+     * Result of one benchmark
+     *
+     * @param opsPerSecond     mean throughput of the samples
+     * @param stddev           standard deviation of the sample throughputs
+     * @param samples          number of samples
+     * @param normalized       mean of the per-round throughput divided by the round's calibration throughput
+     * @param normalizedStddev standard deviation of the normalized throughput
+     */
+    record Result(double opsPerSecond, double stddev, int samples, double normalized, double normalizedStddev) {
+    }
+
+    static final String[] CORPUS = {
+            "SELECT u.id, u.name FROM users u WHERE u.status = ? AND u.created_at > ?",
+            """
+                    SELECT u.name, COUNT(o.id) AS order_count, SUM(o.total) AS revenue
+                    FROM users u
+                    LEFT JOIN orders o ON u.id = o.user_id
+                    LEFT JOIN regions r ON r.id = u.region_id
+                    WHERE u.status = ? AND o.order_date >= ? AND r.code IN (?, ?, ?)
+                    GROUP BY u.id, u.name
+                    HAVING COUNT(o.id) > ?
+                    ORDER BY revenue DESC
+                    """,
+            "UPDATE orders SET status = ?, updated_at = ? WHERE id = ? AND version = ?",
+            "INSERT INTO audit_log (user_id, action, payload, created_at) VALUES (?, ?, ?, ?)",
+            """
+                    SELECT * FROM (SELECT p.id, p.name, (SELECT MAX(price) FROM prices pr WHERE pr.product_id = p.id) AS price
+                    FROM products p WHERE p.category_id = ?) t WHERE t.price BETWEEN ? AND ?
+                    """
+    };
+
+    /**
+     * Rounds run before sampling, until the benchmarks are compiled
+     */
+    private static final int WARM_UP_ROUNDS = 3;
+
+    private final int samples;
+
+    private final long sampleMillis;
+
+    private double calibration;
+
+    RegressionBenchmark(int samples, long sampleMillis) {
+        this.samples = samples;
+        this.sampleMillis = sampleMillis;
+    }
+
+    /**
+     * Runs the calibration loop and all benchmarks
+     *
+     * @return results by benchmark name
+     */
+    Map<String, Result> run() {
+        // a parse pool of one thread, so that parsing is measured rather than the creation
+        // of JSQLParser's executor per statement
+        try (SqlToolEngine engine = SqlToolEngine.builder().parseThreads(1).build()) {
+            return run(engine);
+        }
+    }
+
+    private Map<String, Result> run(SqlToolEngine engine) {
+        SqlParser parser = engine.getParser();
+        Statement[] statements = new Statement[CORPUS.length];
+        for (int i = 0; i < CORPUS.length; i++) {
+            statements[i] = parser.parse(CORPUS[i]);
+        }
+        Map<String, Runnable> benchmarks = new LinkedHashMap<>();
+        int[] next = new int[1];
+        benchmarks.put("parse", () -> parser.parse(CORPUS[next[0]++ % CORPUS.length]));
+        benchmarks.put("tableFinder", () -> new TableFinder<>().getTablesOrOtherSources(statements[next[0]++ % statements.length]));
+        benchmarks.put("paramFinder", () -> new ParamFinder<>().get(statements[next[0]++ % statements.length]));
+        benchmarks.put("merge", () -> engine.addJoinAndWhere(CORPUS[next[0]++ % 2],
+                "LEFT JOIN accounts a ON a.user_id = u.id", "u.tenant_id = ?"));
+
+        int[] data = new Random(7).ints(4096).toArray();
+        Runnable calibrationLoop = () -> Arrays.sort(data.clone());
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            runFor(calibrationLoop, sampleMillis);
+            for (Runnable operation : benchmarks.values()) {
+                runFor(operation, sampleMillis);
+            }
+        }
+
+        // rounds interleave the calibration loop with every benchmark, so that drifting
+        // machine speed affects a round's calibration and its benchmarks alike
+        double[] calibrations = new double[samples];
+        double[][] throughput = new double[benchmarks.size()][samples];
+        double[][] ratios = new double[benchmarks.size()][samples];
+        for (int round = 0; round < samples; round++) {
+            calibrations[round] = runFor(calibrationLoop, sampleMillis);
+            int index = 0;
+            for (Runnable operation : benchmarks.values()) {
+                throughput[index][round] = runFor(operation, sampleMillis);
+                ratios[index][round] = throughput[index][round] / calibrations[round];
+                index++;
+            }
+        }
+        calibration = mean(calibrations);
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        int index = 0;
+        for (String name : benchmarks.keySet()) {
+            double mean = mean(throughput[index]);
+            double normalized = mean(ratios[index]);
+            results.put(name, new Result(mean, stddev(throughput[index], mean), samples,
+                    normalized, stddev(ratios[index], normalized)));
+            index++;
+        }
+        return results;
+    }
+
+    private static double runFor(Runnable operation, long millis) {
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000;
+        long ops = 0;
+        long now;
+        do {
+            operation.run();
+            ops++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return ops * 1_000_000_000.0 / (now - start);
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double stddev(double[] values, double mean) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squares / (values.length - 1));
+    }
+
+    /**
+     * Compares results with a baseline on normalized throughput. A benchmark regressed if
+     * it is slower than the baseline by more than the tolerance and the difference is
+     * larger than three standard errors of the two means, i.e. unlikely to be noise.
+     *
+     * @param baseline  the baseline results
+     * @param current   the current results
+     * @param tolerance accepted relative slowdown, e.g. 0.15
+     * @return descriptions of the regressions, empty if none
+     */
+    static List<String> compare(Map<String, Result> baseline, Map<String, Result> current, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Result> entry : baseline.entrySet()) {
+            Result before = entry.getValue();
+            Result after = current.get(entry.getKey());
+            if (after == null) {
+                continue;
+            }
+            double change = after.normalized() / before.normalized() - 1;
+            double standardError = Math.sqrt(square(before.normalizedStddev()) / before.samples()
+                    + square(after.normalizedStddev()) / after.samples());
+            if (change < -tolerance && before.normalized() - after.normalized() > 3 * standardError) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.1f%% slower (normalized %.4f -> %.4f)",
+                        entry.getKey(), -change * 100, before.normalized(), after.normalized()));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Estimates the smallest relative slowdown {@link #compare(Map, Map, double)} flags
+     * against a baseline, assuming the current results are as noisy as the baseline
+     *
+     * @param baseline the baseline result
+     * @return the detectable slowdown, e.g. 0.1 for 10%
+     */
+    static double detectableSlowdown(Result baseline) {
+        return 3 * Math.sqrt(2.0 / baseline.samples()) * baseline.normalizedStddev() / baseline.normalized();
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    /**
+     * Writes results as JSON
+     *
+     * @param version the library version the results belong to
+     * @param results results by benchmark name
+     * @return the JSON document
+     */
+    String toJson(String version, Map<String, Result> results) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"version\": \"").append(version).append("\",\n");
+        json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append(String.format(Locale.ROOT, "  \"calibrationOpsPerSecond\": %.3f,%n", calibration));
+        json.append("  \"benchmarks\": {\n");
+        int index = 0;
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            Result result = entry.getValue();
+            json.append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"opsPerSecond\": %.3f, \"stddev\": %.3f, \"samples\": %d, \"normalized\": %.6f, \"normalizedStddev\": %.6f}",
+                    entry.getKey(), result.opsPerSecond(), result.stddev(), result.samples(),
+                    result.normalized(), result.normalizedStddev()));
+            json.append(++index < results.size() ? ",\n" : "\n");
+        }
+        json.append("  }\n}\n");
+        return json.toString();
+    }
+
+    private static final Pattern BENCHMARK = Pattern.compile("\"(\\w+)\"\\s*:\\s*\\{([^{}]*)}");
+
+    /**
+     * Reads the benchmarks of a JSON document written by {@link #toJson(String, Map)}
+     *
+     * @param json the JSON document
+     * @return results by benchmark name
+     */
+    static Map<String, Result> fromJson(String json) {
+        Map<String, Result> results = new LinkedHashMap<>();
+        Matcher matcher = BENCHMARK.matcher(json);
+        while (matcher.find()) {
+            String fields = matcher.group(2);
+            results.put(matcher.group(1), new Result(field(fields, "opsPerSecond"), field(fields, "stddev"),
+                    (int) field(fields, "samples"), field(fields, "normalized"), field(fields, "normalizedStddev")));
+        }
+        return results;
+    }
+
+    private static double field(String fields, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\"\\s*:\\s*([-0-9.eE]+)").matcher(fields);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Missing benchmark field " + name + " in " + fields);
+        }
+        return Double.parseDouble(matcher.group(1));
+    }
+}
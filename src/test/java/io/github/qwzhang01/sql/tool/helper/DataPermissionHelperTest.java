@@ -0,0 +1,114 @@
+package io.github.qwzhang01.sql.tool.helper;
+
+import io.github.qwzhang01.sql.tool.exception.SqlIllegalException;
+import io.github.qwzhang01.sql.tool.exception.UnSupportedException;
+import io.github.qwzhang01.sql.tool.model.PermissionRule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Data permission rule engine tests
+ */
+@DisplayName("Data Permission Helper Tests")
+public class DataPermissionHelperTest {
+
+    @Test
+    @DisplayName("All matching rules are applied with resolved aliases")
+    public void testApplyRules() {
+        PermissionRuleRegistry registry = new PermissionRuleRegistry();
+        registry.register(new PermissionRule("users", "dept_id IN (1, 2)"));
+        registry.register(new PermissionRule("users", "users.deleted = 0"));
+        registry.register(new PermissionRule("orders", "status <> 'hidden' OR owner = ?"));
+        DataPermissionHelper helper = new DataPermissionHelper(registry);
+
+        String sql = helper.apply("SELECT * FROM users u JOIN orders o ON o.user_id = u.id WHERE u.age > 18 OR u.vip = 1");
+        assertEquals("SELECT * FROM users u JOIN orders o ON o.user_id = u.id "
+                + "WHERE (u.age > 18 OR u.vip = 1) AND u.dept_id IN (1, 2) AND u.deleted = 0 "
+                + "AND (o.status <> 'hidden' OR o.owner = ?)", sql);
+
+        assertEquals("UPDATE users SET name = ? WHERE id = ? AND users.dept_id IN (1, 2) AND users.deleted = 0",
+                helper.apply("UPDATE users SET name = ? WHERE id = ?"));
+    }
+
+    @Test
+    @DisplayName("Statements without matching rules are returned unchanged")
+    public void testNoMatchingRules() {
+        PermissionRuleRegistry registry = new PermissionRuleRegistry();
+        registry.register(new PermissionRule("users", "dept_id = 1"));
+        DataPermissionHelper helper = new DataPermissionHelper(registry);
+
+        String sql = "SELECT *   FROM goods g";
+        assertSame(sql, helper.apply(sql));
+    }
+
+    @Test
+    @DisplayName("Rule sets can be replaced atomically")
+    public void testReplaceAll() {
+        PermissionRuleRegistry registry = new PermissionRuleRegistry();
+        registry.register(new PermissionRule("users", "dept_id = 1"));
+        DataPermissionHelper helper = new DataPermissionHelper(registry);
+
+        registry.replaceAll(List.of(new PermissionRule("`Users`", "org_id = 9")));
+        assertEquals("SELECT * FROM users WHERE users.org_id = 9", helper.apply("SELECT * FROM users"));
+
+        assertThrows(SqlIllegalException.class,
+                () -> registry.replaceAll(List.of(new PermissionRule("users", "org_id IN ("))));
+        assertEquals(1, registry.getRules("users").size());
+        assertEquals("org_id = 9", registry.getRules("USERS").get(0).getCondition());
+    }
+
+    @Test
+    @DisplayName("Rules reach every query block")
+    public void testNestedQueryBlocks() {
+        PermissionRuleRegistry registry = new PermissionRuleRegistry();
+        registry.register(new PermissionRule("users", "dept_id = 1"));
+        DataPermissionHelper helper = new DataPermissionHelper(registry);
+
+        assertEquals("SELECT * FROM (SELECT * FROM users WHERE users.dept_id = 1) x",
+                helper.apply("select * from (select * from users) x"));
+        assertEquals("SELECT * FROM t WHERE id IN (SELECT user_id FROM users WHERE users.dept_id = 1)",
+                helper.apply("select * from t where id in (select user_id from users)"));
+        assertEquals("SELECT * FROM t WHERE EXISTS (SELECT 1 FROM users u WHERE u.id = t.user_id AND u.dept_id = 1)",
+                helper.apply("select * from t where exists (select 1 from users u where u.id = t.user_id)"));
+        assertEquals("SELECT t.id, (SELECT name FROM users u WHERE u.id = t.user_id AND u.dept_id = 1) AS name FROM t",
+                helper.apply("select t.id, (select name from users u where u.id = t.user_id) as name from t"));
+        assertEquals("WITH v AS (SELECT * FROM users WHERE users.dept_id = 1) SELECT * FROM v",
+                helper.apply("with v as (select * from users) select * from v"));
+        assertEquals("SELECT * FROM users WHERE users.dept_id = 1 UNION SELECT * FROM users WHERE users.dept_id = 1",
+                helper.apply("select * from users union select * from users"));
+        assertEquals("SELECT * FROM t LEFT JOIN users u ON u.id = t.user_id AND u.dept_id = 1",
+                helper.apply("select * from t left join users u on u.id = t.user_id"));
+        assertEquals("INSERT INTO log (id) SELECT id FROM users WHERE users.dept_id = 1",
+                helper.apply("insert into log (id) select id from users"));
+    }
+
+    @Test
+    @DisplayName("Statements that cannot be rewritten fail closed")
+    public void testFailClosed() {
+        PermissionRuleRegistry registry = new PermissionRuleRegistry();
+        registry.register(new PermissionRule("users", "dept_id = 1"));
+        DataPermissionHelper helper = new DataPermissionHelper(registry);
+
+        assertThrows(UnSupportedException.class, () -> helper.apply(
+                "MERGE INTO archive a USING users u ON (a.id = u.id) WHEN NOT MATCHED THEN INSERT (id) VALUES (u.id)"));
+        String other = "MERGE INTO archive a USING goods g ON (a.id = g.id) WHEN NOT MATCHED THEN INSERT (id) VALUES (g.id)";
+        assertSame(other, helper.apply(other));
+    }
+
+    @Test
+    @DisplayName("Statements and rules are parsed with the settings of the given engine")
+    public void testEngine() {
+        try (SqlToolEngine engine = SqlToolEngine.builder()
+                .parserFeatures(parser -> parser.withSquareBracketQuotation(true)).build()) {
+            PermissionRuleRegistry registry = new PermissionRuleRegistry(engine);
+            registry.register(new PermissionRule("users", "dept_id = 1"));
+            DataPermissionHelper helper = new DataPermissionHelper(engine, registry);
+            assertEquals("SELECT * FROM [users] u WHERE u.dept_id = 1", helper.apply("SELECT * FROM [users] u"));
+            assertThrows(SqlIllegalException.class, () -> new DataPermissionHelper(registry).apply("SELECT * FROM [users] u"));
+        }
+    }
+}
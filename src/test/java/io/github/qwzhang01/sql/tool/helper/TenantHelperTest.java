@@ -0,0 +1,180 @@
+package io.github.qwzhang01.sql.tool.helper;
+
+import io.github.qwzhang01.sql.tool.cache.SqlFingerprint;
+import io.github.qwzhang01.sql.tool.cache.StrippedSql;
+import io.github.qwzhang01.sql.tool.exception.SqlComplexityException;
+import io.github.qwzhang01.sql.tool.exception.SqlIllegalException;
+import io.github.qwzhang01.sql.tool.exception.UnSupportedException;
+import io.github.qwzhang01.sql.tool.model.TenantSql;
+import io.github.qwzhang01.sql.tool.wrapper.ParseLimits;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tenant condition injection tests
+ */
+@DisplayName("Tenant Helper Tests")
+public class TenantHelperTest {
+
+    private final TenantHelper helper = new TenantHelper("tenant_id");
+
+    @Test
+    @DisplayName("Simple select uses table alias")
+    public void testSimpleSelect() {
+        String sql = helper.addTenantCondition("SELECT * FROM users u WHERE u.status = ?");
+        assertEquals("SELECT * FROM users u WHERE u.status = ? AND u.tenant_id = ?", sql);
+    }
+
+    @Test
+    @DisplayName("OR conditions are parenthesized")
+    public void testOrWhere() {
+        String sql = helper.addTenantCondition("SELECT * FROM users WHERE a = 1 OR b = 2");
+        assertEquals("SELECT * FROM users WHERE (a = 1 OR b = 2) AND users.tenant_id = ?", sql);
+    }
+
+    @Test
+    @DisplayName("Union branches, derived tables and subqueries")
+    public void testEveryQueryBlock() {
+        String sql = helper.addTenantCondition("""
+                SELECT t.id FROM (SELECT id FROM orders o) t
+                WHERE t.id IN (SELECT order_id FROM items i)
+                AND EXISTS (SELECT 1 FROM users u WHERE u.id = t.id)
+                UNION ALL SELECT id FROM archive
+                """);
+        assertTrue(sql.contains("FROM orders o WHERE o.tenant_id = ?"), sql);
+        assertTrue(sql.contains("FROM items i WHERE i.tenant_id = ?"), sql);
+        assertTrue(sql.contains("WHERE u.id = t.id AND u.tenant_id = ?"), sql);
+        assertTrue(sql.contains("FROM archive WHERE archive.tenant_id = ?"), sql);
+        assertFalse(sql.contains("t.tenant_id"), sql);
+    }
+
+    @Test
+    @DisplayName("CTE names are not treated as tables")
+    public void testWithItems() {
+        String sql = helper.addTenantCondition(
+                "WITH recent AS (SELECT * FROM orders WHERE created > ?) SELECT * FROM recent r");
+        assertTrue(sql.contains("created > ? AND orders.tenant_id = ?"), sql);
+        assertFalse(sql.contains("r.tenant_id"), sql);
+    }
+
+    @Test
+    @DisplayName("Left join condition goes into ON clause")
+    public void testLeftJoin() {
+        String sql = helper.addTenantCondition(
+                "SELECT * FROM users u LEFT JOIN orders o ON u.id = o.user_id JOIN roles r ON r.id = u.role_id");
+        assertTrue(sql.contains("ON u.id = o.user_id AND o.tenant_id = ?"), sql);
+        assertTrue(sql.endsWith("WHERE u.tenant_id = ? AND r.tenant_id = ?"), sql);
+    }
+
+    @Test
+    @DisplayName("Update, delete and insert select")
+    public void testDml() {
+        assertEquals("UPDATE users SET name = ? WHERE id = ? AND users.tenant_id = ?",
+                helper.addTenantCondition("UPDATE users SET name = ? WHERE id = ?"));
+        assertEquals("DELETE FROM users u WHERE u.tenant_id = ?",
+                helper.addTenantCondition("DELETE FROM users u"));
+        assertEquals("INSERT INTO log (id) SELECT id FROM users WHERE users.tenant_id = ?",
+                helper.addTenantCondition("INSERT INTO log (id) SELECT id FROM users"));
+    }
+
+    @Test
+    @DisplayName("Ignored tables and caching")
+    public void testIgnoredTablesAndCache() {
+        TenantHelper custom = new TenantHelper("org_id", "1001", Set.of("dict"), 16);
+        String first = custom.addTenantCondition("SELECT * FROM dict d JOIN users u ON u.type = d.code");
+        assertEquals("SELECT * FROM dict d JOIN users u ON u.type = d.code WHERE u.org_id = 1001", first);
+        assertSame(first, custom.addTenantCondition("SELECT *  FROM dict d\nJOIN users u ON u.type = d.code;"));
+        assertEquals(1, custom.getCacheSize());
+    }
+
+    @Test
+    @DisplayName("Trace comments do not defeat the cache and are re-attached")
+    public void testTraceComments() {
+        TenantHelper custom = new TenantHelper("tenant_id", "?", null, 16);
+        String first = custom.addTenantCondition("/* trace_id=1 span=2 */ SELECT * FROM users -- end");
+        String second = custom.addTenantCondition("/* trace_id=3 span=4 */\nSELECT * FROM users /*+ hint */");
+        assertEquals("/* trace_id=1 span=2 */ SELECT * FROM users WHERE users.tenant_id = ? -- end", first);
+        assertEquals("/* trace_id=3 span=4 */\nSELECT * FROM users WHERE users.tenant_id = ? /*+ hint */", second);
+        assertEquals(1, custom.getCacheSize());
+
+        StrippedSql stripped = StrippedSql.of("-- a\n/* b */ SELECT '/* x */' /*! STRAIGHT_JOIN */ FROM t; /* c */ ");
+        assertEquals("-- a\n/* b */ ", stripped.getLeading());
+        assertEquals("SELECT '/* x */' /*! STRAIGHT_JOIN */ FROM t;", stripped.getBody());
+        assertEquals(" /* c */ ", stripped.getTrailing());
+        assertEquals(SqlFingerprint.of("SELECT a -- inner\nFROM t"), SqlFingerprint.of("/* t=1 */ SELECT a FROM t"));
+        assertNotEquals(SqlFingerprint.of("SELECT /*+ INDEX(t i) */ a FROM t"), SqlFingerprint.of("SELECT a FROM t"));
+
+        assertEquals("/* trace_id=5 */ SELECT * FROM users WHERE id = 1",
+                ParserHelper.addWhere("/* trace_id=5 */ SELECT * FROM users", "id = 1"));
+    }
+
+    @Test
+    @DisplayName("Statements are rewritten from their own text, not from the cache key")
+    public void testRewriteFromOriginalText() {
+        TenantHelper custom = new TenantHelper("tenant_id", "?", null, 16);
+        assertEquals("SELECT * FROM t WHERE a = 1 AND t.tenant_id = ?",
+                custom.addTenantCondition("SELECT * FROM t -- note\nWHERE a = 1"));
+
+        // a backslash before the closing quote must not make two literals look alike
+        String wide = "SELECT * FROM t WHERE a = 'C:\\' AND b = 'x  y'";
+        String narrow = "SELECT * FROM t WHERE a = 'C:\\' AND b = 'x y'";
+        assertNotEquals(SqlFingerprint.of(wide), SqlFingerprint.of(narrow));
+        assertTrue(custom.addTenantCondition(wide).contains("'x  y'"));
+        assertTrue(custom.addTenantCondition(narrow).contains("'x y'"));
+        assertEquals("SELECT 'C:\\' -- x", StrippedSql.of("SELECT 'C:\\' -- x").getBody());
+    }
+
+    @Test
+    @DisplayName("Injected placeholders are reported by JDBC parameter index")
+    public void testTenantIndexes() {
+        String sql = "/* trace */ SELECT * FROM (SELECT * FROM orders o WHERE o.status = ?) t "
+                + "WHERE t.amount > ? AND t.code <> '?' UNION SELECT * FROM archive a WHERE a.note = :note AND a.id = ?";
+        TenantSql rewritten = helper.rewrite(sql);
+        assertEquals("/* trace */ SELECT * FROM (SELECT * FROM orders o WHERE o.status = ? AND o.tenant_id = ?) t "
+                + "WHERE t.amount > ? AND t.code <> '?' UNION SELECT * FROM archive a "
+                + "WHERE a.note = :note AND a.id = ? AND a.tenant_id = ?", rewritten.getSql());
+        assertEquals(List.of(2, 5), rewritten.getTenantIndexes());
+        assertTrue(rewritten.isTenantIndex(5));
+        assertFalse(rewritten.isTenantIndex(3));
+        assertEquals(List.of(2), helper.rewrite("SELECT * FROM users WHERE id = ?").getTenantIndexes());
+
+        // a named or literal tenant value leaves the positions of the original parameters as is
+        TenantHelper named = new TenantHelper("tenant_id", ":tenantId", null, 16);
+        TenantSql namedSql = named.rewrite("SELECT * FROM orders o WHERE o.id IN (SELECT order_id FROM items WHERE sku = ?)"
+                + " AND o.status = ?");
+        assertEquals("SELECT * FROM orders o WHERE o.id IN (SELECT order_id FROM items WHERE sku = ? "
+                + "AND items.tenant_id = :tenantId) AND o.status = ? AND o.tenant_id = :tenantId", namedSql.getSql());
+        assertTrue(namedSql.getTenantIndexes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Statements that cannot receive the tenant condition are rejected")
+    public void testFailClosed() {
+        TenantHelper custom = new TenantHelper("tenant_id", "?", Set.of("archive", "dict"), 16);
+        assertThrows(UnSupportedException.class, () -> custom.addTenantCondition(
+                "MERGE INTO archive a USING users u ON (a.id = u.id) WHEN NOT MATCHED THEN INSERT (id) VALUES (u.id)"));
+        String ignored = "MERGE INTO archive a USING dict d ON (a.id = d.id) WHEN NOT MATCHED THEN INSERT (id) VALUES (d.id)";
+        assertEquals(ignored, custom.addTenantCondition(ignored));
+    }
+
+    @Test
+    @DisplayName("Statements are parsed with the settings of the given engine")
+    public void testEngine() {
+        ParseLimits limits = new ParseLimits();
+        limits.setMaxLength(60);
+        try (SqlToolEngine engine = SqlToolEngine.builder().limits(limits)
+                .parserFeatures(parser -> parser.withSquareBracketQuotation(true)).build()) {
+            TenantHelper custom = new TenantHelper(engine, "tenant_id", "?", null, 16);
+            assertEquals("SELECT * FROM [users] WHERE [users].tenant_id = ?",
+                    custom.addTenantCondition("SELECT * FROM [users]"));
+            assertThrows(SqlComplexityException.class, () -> custom.addTenantCondition(
+                    "SELECT u.id, u.name, u.email FROM users u WHERE u.status = ? AND u.age > ?"));
+            assertThrows(SqlIllegalException.class, () -> helper.addTenantCondition("SELECT * FROM [users]"));
+        }
+    }
+}
@@ -1,20 +1,53 @@
 package io.github.qwzhang01.sql.tool.jsqlparser;
 
+import io.github.qwzhang01.sql.tool.cache.AnalysisCache;
+import io.github.qwzhang01.sql.tool.exception.SqlComplexityException;
 import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.sql.tool.helper.SqlToolEngine;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.ParamExtractor;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderScanner;
+import io.github.qwzhang01.sql.tool.jsqlparser.param.PlaceholderSyntax;
 import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ParamFinder;
 import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import io.github.qwzhang01.sql.tool.model.ExtractedSql;
+import io.github.qwzhang01.sql.tool.model.SqlAnalysis;
 import io.github.qwzhang01.sql.tool.model.SqlParam;
 import io.github.qwzhang01.sql.tool.model.SqlTable;
+import io.github.qwzhang01.sql.tool.monitor.Operation;
+import io.github.qwzhang01.sql.tool.monitor.SlowLogEntry;
+import io.github.qwzhang01.sql.tool.replay.RecordedCall;
+import io.github.qwzhang01.sql.tool.replay.ReplayReport;
+import io.github.qwzhang01.sql.tool.replay.WorkloadRecorder;
+import io.github.qwzhang01.sql.tool.replay.WorkloadReplayer;
+import io.github.qwzhang01.sql.tool.wrapper.ParseLimits;
 import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.parser.ParseException;
 import net.sf.jsqlparser.statement.Statement;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static io.github.qwzhang01.sql.tool.jsqlparser.param.ParamExtractor.preProcessSql;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ParserHelperTest {
@@ -202,6 +235,214 @@ public class ParserHelperTest {
         System.out.println(sql);
     }
 
+    @Test
+    public void testExtract() {
+        ExtractedSql extracted = ParamExtractor.extract("""
+                SELECT * FROM users -- filter by #{ignored}
+                WHERE id = #{user.id,jdbcType=INTEGER} AND name = '#{literal}?'
+                /* #{comment} ? */ AND status = ? AND type = #{ type }
+                """);
+
+        assertEquals(List.of("user.id", "type"), extracted.getNames().stream().filter(Objects::nonNull).toList());
+        assertEquals(3, extracted.getParamCount());
+        assertEquals("user.id", extracted.getName(1));
+        assertNull(extracted.getName(2));
+        assertEquals("type", extracted.getName(3));
+        assertTrue(extracted.getSql().contains("'#{literal}?'"));
+        assertTrue(extracted.getSql().contains("#{ignored}"));
+        assertTrue(extracted.getSql().contains("/* #{comment} ? */"));
+        assertTrue(extracted.getSql().contains("id = ? AND"));
+        assertEquals(3, ParserHelper.getParam(extracted.getSql()).size());
+    }
+
+    @Test
+    public void testSpecParamNames() {
+        List<SqlParam> params = ParserHelper.getSpecParam(
+                "UPDATE users u SET u.name = #{user.name} WHERE u.id = #{user.id} AND u.status = ?");
+        params.sort(Comparator.comparing(SqlParam::getIndex));
+
+        assertEquals(3, params.size());
+        assertEquals("user.name", params.get(0).getName());
+        assertEquals("name", params.get(0).getColumn());
+        assertEquals("user.id", params.get(1).getName());
+        assertEquals("id", params.get(1).getColumn());
+        assertEquals("u", params.get(1).getTable());
+        assertNull(params.get(2).getName());
+    }
+
+    @Test
+    public void testPlaceholderScanner() {
+        PlaceholderScanner scanner = new PlaceholderScanner(EnumSet.allOf(PlaceholderSyntax.class), 16);
+        String sql = "SELECT id::text, @@version FROM users WHERE a = #{a} AND b = ${b} AND c = :c"
+                + " AND d = $1 AND e = ?2 AND f = @p0 AND g = ? AND h = ':x' AND i = :user.name.";
+
+        ExtractedSql extracted = scanner.scan(sql);
+        assertEquals("SELECT id::text, @@version FROM users WHERE a = ? AND b = ? AND c = ?"
+                + " AND d = ? AND e = ? AND f = ? AND g = ? AND h = ':x' AND i = ?.", extracted.getSql());
+        assertEquals(Arrays.asList("a", "b", "c", "1", "2", "p0", null, "user.name"), extracted.getNames());
+        assertSame(extracted, scanner.scan(sql));
+
+        // only the compiled syntaxes are converted
+        PlaceholderScanner named = PlaceholderScanner.compile(PlaceholderSyntax.COLON_NAME);
+        assertEquals("SELECT * FROM t WHERE a = ? AND b = #{b}",
+                named.scan("SELECT * FROM t WHERE a = :a AND b = #{b}").getSql());
+
+        List<SqlParam> params = ParserHelper.getSpecParam("UPDATE users SET name = :name WHERE id = $1",
+                PlaceholderScanner.compile(PlaceholderSyntax.COLON_NAME, PlaceholderSyntax.DOLLAR_NUMBER));
+        params.sort(Comparator.comparing(SqlParam::getIndex));
+        assertEquals("name", params.get(0).getName());
+        assertEquals("1", params.get(1).getName());
+        assertEquals("id", params.get(1).getColumn());
+    }
+
+    @Test
+    public void testAnalyze() {
+        AnalysisCache<SqlAnalysis> cache = ParserHelper.getAnalysisCache();
+        cache.clear();
+        String sql = "SELECT u.name FROM users u JOIN orders o ON u.id = o.user_id WHERE o.status = ?";
+
+        SqlAnalysis analysis = ParserHelper.analyze(sql);
+        assertTrue(analysis.isSupported());
+        assertEquals(2, analysis.getTables().size());
+        assertEquals(1, analysis.getParams().size());
+        assertEquals("status", analysis.getParams().get(0).getColumn());
+        assertThrows(UnsupportedOperationException.class, () -> analysis.getTables().clear());
+
+        // same instance on the same thread: answered by the per-thread level
+        long localHits = cache.getLocalHits();
+        assertSame(analysis, ParserHelper.analyze(sql));
+        assertEquals(localHits + 1, cache.getLocalHits());
+
+        // equal statement text in another instance: answered by the shared level
+        long sharedHits = cache.getSharedHits();
+        assertSame(analysis, ParserHelper.analyze(sql.replace(" WHERE", "\n  WHERE")));
+        assertEquals(sharedHits + 1, cache.getSharedHits());
+
+        // clearing invalidates the per-thread level as well
+        long misses = cache.getMisses();
+        cache.clear();
+        ParserHelper.analyze(sql);
+        assertEquals(misses + 1, cache.getMisses());
+
+        assertEquals("CreateIndex", ParserHelper.analyze("CREATE INDEX idx_name ON users (name)").getUnsupportedType());
+    }
+
+    @Test
+    public void testRecordAndReplay(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("workload.bin");
+        try (WorkloadRecorder recorder = new WorkloadRecorder(file, 100)) {
+            ParserHelper.setRecorder(recorder);
+            try {
+                ParserHelper.getTables("SELECT * FROM users u JOIN orders o ON o.user_id = u.id");
+                ParserHelper.getParam("UPDATE users SET name = ? WHERE id = ?");
+                ParserHelper.analyze("SELECT * FROM users WHERE id = ?");
+                ParserHelper.getSpecParam("SELECT * FROM users WHERE id = #{id}");
+                ParserHelper.getSpecParam("SELECT * FROM users WHERE id = :id",
+                        PlaceholderScanner.compile(PlaceholderSyntax.COLON_NAME));
+                ParserHelper.addJoinAndWhere("SELECT * FROM users u", null, "u.deleted = 0");
+                assertThrows(RuntimeException.class, () -> ParserHelper.getTables("SELEKT * FROM users"));
+                ParserHelper.getParamRuns("INSERT INTO users (id, name) VALUES (?, ?), (?, ?)");
+                ParserHelper.getBulkInsert("INSERT INTO users (id, name) VALUES (?, ?), (?, ?)");
+                ParserHelper.tryGetTables("SELECT * FROM users u JOIN orders o ON o.user_id = u.id");
+                ParserHelper.tryGetParam("UPDATE users SET name = ? WHERE id = ?");
+            } finally {
+                ParserHelper.setRecorder(null);
+            }
+            assertEquals(11, recorder.getRecorded());
+        }
+
+        List<RecordedCall> calls = WorkloadRecorder.read(file);
+        assertEquals(11, calls.size());
+        assertEquals(Operation.GET_PARAM_RUNS, calls.get(7).getOperation());
+        assertEquals(Operation.TRY_GET_PARAM, calls.get(10).getOperation());
+        assertTrue(calls.get(8).getResult().contains("rowCount=2"));
+        assertEquals(Operation.ADD_JOIN_AND_WHERE, calls.get(5).getOperation());
+        assertArrayEquals(new String[]{null, "u.deleted = 0"}, calls.get(5).getArguments());
+        assertArrayEquals(new String[]{"syntax", "COLON_NAME"}, calls.get(4).getArguments());
+        assertTrue(calls.get(6).isFailed());
+
+        ReplayReport single = new WorkloadReplayer(calls).replay(1);
+        assertEquals(0, single.getMismatchCount(), single.toString());
+        assertEquals(11, single.getLatency().getCount());
+        assertEquals(0, new WorkloadReplayer(calls).replay(3).getMismatchCount());
+
+        // a changed result is reported
+        RecordedCall changed = new RecordedCall(Operation.GET_PARAM, calls.get(1).getSql(), new String[0],
+                0, 0, "[]");
+        ReplayReport report = new WorkloadReplayer(List.of(changed)).replay(1);
+        assertEquals(1, report.getMismatchCount());
+        assertTrue(report.getMismatches().get(0).startsWith("GET_PARAM UPDATE users"));
+    }
+
+    @Test
+    public void testEngineIsolation() {
+        ParseLimits limits = new ParseLimits();
+        limits.setMaxLength(60);
+        String longSql = "SELECT u.id, u.name, u.email FROM users u WHERE u.status = ? AND u.age > ?";
+        SqlToolEngine pooled = SqlToolEngine.builder().parseThreads(2)
+                .parserFeatures(parser -> parser.withSquareBracketQuotation(true)).build();
+        try (SqlToolEngine limited = SqlToolEngine.builder().limits(limits).analysisCache(16, 64 * 1024).build()) {
+            // a limit of one engine affects neither another engine nor the default one
+            assertThrows(SqlComplexityException.class, () -> limited.getTables(longSql));
+            assertEquals(2, pooled.getParam(longSql).size());
+            assertEquals(2, ParserHelper.getParam(longSql).size());
+            assertEquals(0, SqlParser.getInstance().getLimits().getMaxLength());
+
+            // caches and metrics are per engine
+            assertEquals(16, limited.getAnalysisCache().getCapacity());
+            assertNotSame(pooled.getAnalysisCache(), ParserHelper.getAnalysisCache());
+            SqlAnalysis analysis = pooled.analyze("SELECT * FROM orders WHERE id = ?");
+            assertSame(analysis, pooled.analyze("SELECT * FROM orders WHERE id = ?"));
+            assertEquals(1, pooled.getAnalysisCache().getMisses());
+            assertEquals(0, limited.getAnalysisCache().getMisses());
+            assertEquals(0, limited.getMetrics().snapshot(Operation.ANALYZE).getCount());
+            assertEquals(2, pooled.getMetrics().snapshot(Operation.ANALYZE).getCount());
+
+            // dialect features and the engine-owned parse pool
+            assertNotNull(pooled.getParser().getParseExecutor());
+            assertEquals(1, pooled.getTables("SELECT [name] FROM [users]").size());
+            assertTrue(pooled.addWhere("SELECT * FROM users u", "u.deleted = 0").contains("u.deleted = 0"));
+        } finally {
+            pooled.close();
+        }
+        // closing shuts down the pool, parsing continues without it
+        assertNull(pooled.getParser().getParseExecutor());
+        assertEquals(2, pooled.getParam(longSql).size());
+    }
+
+    @Test
+    public void testEngineCloseStopsSlowLog() throws InterruptedException {
+        Set<Thread> before = slowLogThreads();
+        List<SlowLogEntry> entries = new ArrayList<>();
+        SqlToolEngine engine = SqlToolEngine.builder().slowThreshold(1, TimeUnit.NANOSECONDS).build();
+        engine.getParser().getSlowLog().setSink(entries::add);
+        engine.getTables("SELECT * FROM users WHERE id = ?");
+
+        Set<Thread> started = slowLogThreads();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+
+        engine.close();
+        for (Thread thread : started) {
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+        }
+        // pending entries are written on close, a closed engine starts no new writer
+        assertFalse(entries.isEmpty());
+        engine.getTables("SELECT * FROM orders WHERE id = ?");
+        assertTrue(slowLogThreads().stream().noneMatch(thread -> !before.contains(thread)));
+    }
+
+    private static Set<Thread> slowLogThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("sql-tool-slow-log".equals(thread.getName()) && thread.isAlive()) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
     @Test
     public void test2() throws JSQLParserException {
         String sql = """
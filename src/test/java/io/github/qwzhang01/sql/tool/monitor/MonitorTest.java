@@ -0,0 +1,221 @@
+package io.github.qwzhang01.sql.tool.monitor;
+
+import io.github.qwzhang01.sql.tool.cache.AnalysisCache;
+import io.github.qwzhang01.sql.tool.cache.SqlFingerprint;
+import io.github.qwzhang01.sql.tool.exception.SqlIllegalException;
+import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.sql.tool.helper.SqlToolEngine;
+import io.github.qwzhang01.sql.tool.wrapper.SqlParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JMX management, latency metrics and slow log tests
+ */
+@DisplayName("Monitoring Tests")
+public class MonitorTest {
+
+    @AfterEach
+    public void restoreDefaults() {
+        SqlParser.getInstance().setInstrumented(true);
+        ParserHelper.getMetrics().setEnabled(true);
+        SqlParser.getInstance().getSlowLog().setThreshold(SlowLog.DEFAULT_THRESHOLD_MILLIS, TimeUnit.MILLISECONDS);
+        SqlParser.getInstance().getSlowLog().setSink(null);
+        SqlParser.getInstance().getSlowLog().shutdown();
+    }
+
+    @Test
+    @DisplayName("Parser statistics and caches are exposed through JMX")
+    public void testManagement() throws Exception {
+        ObjectName name = SqlToolManagement.register();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.invoke(name, "resetStatistics", null, null);
+            server.invoke(name, "clearNegativeCache", null, null);
+
+            SqlParser parser = SqlParser.getInstance();
+            parser.parse("SELECT * FROM users WHERE id = 1");
+            assertThrows(SqlIllegalException.class, () -> parser.parse("SELEKT * FROM users"));
+            assertThrows(SqlIllegalException.class, () -> parser.parse("SELEKT * FROM users"));
+
+            assertEquals(3L, server.getAttribute(name, "ParseCount"));
+            assertEquals(2L, server.getAttribute(name, "ParseFailures"));
+            assertEquals(1L, server.getAttribute(name, "NegativeCacheHits"));
+            assertTrue((Double) server.getAttribute(name, "ParseLatencyP999Micros") > 0);
+            assertTrue(((String[]) server.getAttribute(name, "SlowestFingerprints")).length >= 2);
+            assertArrayEquals(new String[]{"SELEKT * FROM users"},
+                    (String[]) server.getAttribute(name, "NegativeCacheFingerprints"));
+
+            server.setAttribute(name, new Attribute("Instrumented", false));
+            parser.parse("SELECT 1");
+            assertEquals(3L, server.getAttribute(name, "ParseCount"));
+
+            ParserHelper.analyze("SELECT * FROM orders");
+            server.invoke(name, "resizeAnalysisCache", new Object[]{8, 4096L}, new String[]{"int", "long"});
+            assertEquals(8, server.getAttribute(name, "AnalysisCacheCapacity"));
+            assertTrue((Long) server.getAttribute(name, "AnalysisCacheWeight") <= 4096L);
+            server.invoke(name, "clearAnalysisCache", null, null);
+            assertEquals(0, server.getAttribute(name, "AnalysisCacheSize"));
+        } finally {
+            ParserHelper.getAnalysisCache().getShared().resize(AnalysisCache.DEFAULT_CAPACITY,
+                    ParserHelper.DEFAULT_ANALYSIS_CACHE_BYTES);
+            SqlToolManagement.unregister();
+        }
+    }
+
+    @Test
+    @DisplayName("Engines are registered through JMX side by side under their own names")
+    public void testEngineManagement() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try (SqlToolEngine first = SqlToolEngine.builder().build();
+             SqlToolEngine second = SqlToolEngine.builder().build()) {
+            ObjectName firstName = SqlToolManagement.register(first, "first");
+            ObjectName secondName = SqlToolManagement.register(second, "second");
+            try {
+                assertEquals("first", ObjectName.unquote(firstName.getKeyProperty("name")));
+                assertThrows(IllegalStateException.class, () -> SqlToolManagement.register(second, "first"));
+
+                first.getTables("SELECT * FROM users");
+                assertEquals(1L, server.getAttribute(firstName, "ParseCount"));
+                assertEquals(0L, server.getAttribute(secondName, "ParseCount"));
+            } finally {
+                SqlToolManagement.unregister("first");
+                SqlToolManagement.unregister("second");
+            }
+            assertFalse(server.isRegistered(firstName));
+            assertFalse(server.isRegistered(secondName));
+        }
+    }
+
+    @Test
+    @DisplayName("Latency histogram percentiles")
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        long p50 = histogram.getPercentile(50, TimeUnit.NANOSECONDS);
+        long p99 = histogram.getPercentile(99, TimeUnit.NANOSECONDS);
+        assertTrue(p50 >= 500_000 && p50 < 500_000 * 1.0625, "p50 " + p50);
+        assertTrue(p99 >= 990_000 && p99 < 990_000 * 1.0625, "p99 " + p99);
+        histogram.reset();
+        assertEquals(0, histogram.getPercentile(99, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    @DisplayName("ParserHelper latencies per operation and statement type")
+    public void testOperationMetrics() {
+        OperationMetrics metrics = ParserHelper.getMetrics();
+        metrics.reset();
+        ParserHelper.getTables("SELECT * FROM users");
+        ParserHelper.getTables("/* trace */ (SELECT * FROM users) UNION (SELECT * FROM admins)");
+        ParserHelper.getParam("UPDATE users SET name = ? WHERE id = ?");
+        ParserHelper.addWhere("DELETE FROM users", "id = ?");
+
+        assertEquals(2, metrics.snapshot(Operation.GET_TABLES, StatementType.SELECT).getCount());
+        assertEquals(1, metrics.snapshot(Operation.GET_PARAM, StatementType.UPDATE).getCount());
+        // nested calls are not recorded as separate operations
+        assertEquals(2, metrics.snapshot(Operation.GET_TABLES).getCount());
+        assertEquals(1, metrics.snapshot(Operation.ADD_JOIN_AND_WHERE, StatementType.DELETE).getCount());
+        assertTrue(metrics.snapshot(Operation.GET_TABLES).getPercentile(99.9, TimeUnit.NANOSECONDS) > 0);
+
+        metrics.setEnabled(false);
+        ParserHelper.getTables("SELECT * FROM users");
+        assertEquals(2, metrics.snapshot(Operation.GET_TABLES).getCount());
+        metrics.reset();
+        assertEquals(0, metrics.snapshot(Operation.GET_TABLES).getCount());
+    }
+
+    @Test
+    @DisplayName("Slow phases are aggregated per fingerprint and written off the request thread")
+    public void testSlowLog() {
+        SlowLog slowLog = SqlParser.getInstance().getSlowLog();
+        List<SlowLogEntry> written = new ArrayList<>();
+        slowLog.setSink(written::add);
+        slowLog.flush();
+        slowLog.setThreshold(1, TimeUnit.NANOSECONDS);
+
+        SqlParser.getInstance().parse("SELECT * FROM users WHERE id = 1");
+        SqlParser.getInstance().parse("SELECT * FROM users WHERE id = 2");
+        ParserHelper.addWhere("DELETE FROM users", "id = ?");
+        slowLog.setThreshold(0, TimeUnit.MILLISECONDS);
+        SqlParser.getInstance().parse("SELECT * FROM admins");
+        slowLog.flush();
+
+        SlowLogEntry users = written.stream()
+                .filter(e -> e.getPhase() == SlowLog.Phase.PARSE && e.getSample().contains("users WHERE"))
+                .findFirst().orElseThrow();
+        assertEquals(2, users.getCount());
+        assertEquals("SELECT * FROM users WHERE id = 1", users.getSample());
+        assertEquals("SELECT * FROM users WHERE id = ?", users.getFingerprint());
+        assertTrue(users.getMax(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(written.stream().anyMatch(e -> e.getPhase() == SlowLog.Phase.DEPARSE));
+        assertTrue(written.stream().noneMatch(e -> e.getSample().contains("admins")));
+
+        assertEquals("SELECT * FROM t1 WHERE \"col2\" = ? AND name IN (?, ?) AND x > -?",
+                SqlFingerprint.shape("SELECT *  FROM t1 WHERE \"col2\" = 'it''s' AND name IN ('a\\'b', 0x1F) AND x > -1.5e3"));
+
+        // samples are truncated, events beyond the ring are counted as dropped
+        SlowLog local = new SlowLog();
+        List<SlowLogEntry> localWritten = new ArrayList<>();
+        local.setSink(localWritten::add);
+        local.setSampleLength(10);
+        for (int i = 0; i < 2000; i++) {
+            local.record(SlowLog.Phase.VISIT, "SELECT * FROM orders WHERE id = " + i, TimeUnit.SECONDS.toNanos(1));
+        }
+        assertEquals(1, local.flush());
+        assertEquals("SELECT * F...", localWritten.get(0).getSample());
+        assertEquals(1024, localWritten.get(0).getCount());
+        assertEquals(976, local.getDropped());
+        local.shutdown();
+    }
+
+    @Test
+    @DisplayName("Slow events published concurrently with flushes are written or counted as dropped")
+    public void testSlowLogConcurrentFlush() throws Exception {
+        SlowLog local = new SlowLog();
+        LongAdder written = new LongAdder();
+        local.setSink(entry -> written.add(entry.getCount()));
+        int threads = 4;
+        int events = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                producers.add(executor.submit(() -> {
+                    for (int i = 0; i < events; i++) {
+                        local.record(SlowLog.Phase.PARSE, "SELECT * FROM t WHERE id = 1", TimeUnit.SECONDS.toNanos(1));
+                    }
+                }));
+            }
+            while (!producers.stream().allMatch(Future::isDone)) {
+                local.flush();
+            }
+            for (Future<?> producer : producers) {
+                producer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            local.shutdown();
+        }
+        local.flush();
+        assertEquals((long) threads * events, local.getRecorded());
+        assertEquals(local.getRecorded(), written.sum() + local.getDropped());
+    }
+}
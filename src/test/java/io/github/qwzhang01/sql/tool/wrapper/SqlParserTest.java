@@ -0,0 +1,218 @@
+package io.github.qwzhang01.sql.tool.wrapper;
+
+import io.github.qwzhang01.sql.tool.cache.NegativeCache;
+import io.github.qwzhang01.sql.tool.cache.SqlFingerprint;
+import io.github.qwzhang01.sql.tool.exception.SqlComplexityException;
+import io.github.qwzhang01.sql.tool.exception.SqlIllegalException;
+import io.github.qwzhang01.sql.tool.helper.ParserHelper;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.ParamFinder;
+import io.github.qwzhang01.sql.tool.jsqlparser.visitor.TableFinder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL parser wrapper tests
+ */
+@DisplayName("SQL Parser Tests")
+public class SqlParserTest {
+
+    @AfterEach
+    public void restoreDefaults() {
+        SqlParser.getInstance().setLimits(null);
+        SqlParser.getInstance().setNegativeCache(SqlParser.DEFAULT_NEGATIVE_CACHE_SIZE,
+                SqlParser.DEFAULT_NEGATIVE_CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+        SqlParser.getInstance().setLiteralOffloadThreshold(SqlParser.DEFAULT_LITERAL_OFFLOAD_THRESHOLD);
+    }
+
+    @Test
+    @DisplayName("Known-bad statements are rejected from the negative cache")
+    public void testNegativeCache() {
+        SqlParser parser = SqlParser.getInstance();
+        parser.setNegativeCache(16, 1, TimeUnit.MINUTES);
+        String sql = "SELEKT * FROM users WHERE id = 1";
+
+        SqlIllegalException first = assertThrows(SqlIllegalException.class, () -> parser.parse(sql));
+        assertTrue(first.getStackTrace().length > 0);
+        assertEquals(1, parser.getNegativeCache().size());
+
+        SqlIllegalException second = assertThrows(SqlIllegalException.class, () -> parser.parse(sql));
+        SqlIllegalException third = assertThrows(SqlIllegalException.class, () -> parser.parse("  " + sql + ";"));
+        assertSame(second, third);
+        assertEquals(0, second.getStackTrace().length);
+        assertEquals(sql, second.getSql());
+        // only the failed statement shapes are fingerprinted, the text itself is the lookup key
+        assertEquals(List.of(SqlFingerprint.of(sql)), parser.getNegativeCache().getFingerprints());
+        assertSame(second, parser.getNegativeCache().get("  " + sql + ";"));
+        assertNull(parser.getNegativeCache().get("SELECT 1"));
+
+        // changing the dialect features forgets statements rejected under the old ones
+        String bracketed = "SELECT [name] FROM [users]";
+        assertThrows(SqlIllegalException.class, () -> parser.parse(bracketed));
+        parser.setFeatures(p -> p.withSquareBracketQuotation(true));
+        try {
+            assertEquals(0, parser.getNegativeCache().size());
+            assertNotNull(parser.parse(bracketed));
+        } finally {
+            parser.setFeatures(null);
+        }
+    }
+
+    @Test
+    @DisplayName("Negative cache entries expire")
+    public void testNegativeCacheTtl() throws InterruptedException {
+        NegativeCache cache = new NegativeCache(4, 20, TimeUnit.MILLISECONDS);
+        cache.put("bad", new SqlIllegalException("Invalid SQL, cannot parse", null, "bad"));
+        assertNotNull(cache.get("bad"));
+
+        Thread.sleep(40);
+        assertNull(cache.get("bad"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Negative cache can be disabled")
+    public void testNegativeCacheDisabled() {
+        SqlParser parser = SqlParser.getInstance();
+        parser.setNegativeCache(0, 1, TimeUnit.MINUTES);
+        assertNull(parser.getNegativeCache());
+
+        SqlIllegalException first = assertThrows(SqlIllegalException.class, () -> parser.parse("SELEKT 1"));
+        SqlIllegalException second = assertThrows(SqlIllegalException.class, () -> parser.parse("SELEKT 1"));
+        assertNotSame(first, second);
+    }
+
+    @Test
+    @DisplayName("Long SQL is truncated in exception messages")
+    public void testMessageTruncation() {
+        String sql = "SELEKT '" + "x".repeat(10_000) + "'";
+        SqlIllegalException e = assertThrows(SqlIllegalException.class, () -> SqlParser.getInstance().parse(sql));
+        assertTrue(e.getMessage().length() < 1000);
+        assertTrue(e.getMessage().endsWith("(" + sql.length() + " chars)"));
+        assertEquals(sql, e.getSql());
+    }
+
+    @Test
+    @DisplayName("Text limits fail fast before parsing")
+    public void testTextLimits() {
+        SqlParser parser = SqlParser.getInstance();
+        ParseLimits limits = new ParseLimits();
+        limits.setMaxLength(100);
+        limits.setMaxDepth(10);
+        limits.setMaxTokens(50);
+        parser.setLimits(limits);
+
+        SqlComplexityException length = assertThrows(SqlComplexityException.class,
+                () -> parser.parse("SELECT * FROM users WHERE name = '" + "x".repeat(200) + "'"));
+        assertEquals(SqlComplexityException.Limit.LENGTH, length.getLimit());
+
+        SqlComplexityException depth = assertThrows(SqlComplexityException.class,
+                () -> parser.parse("SELECT " + "(".repeat(20) + "1" + ")".repeat(20)));
+        assertEquals(SqlComplexityException.Limit.DEPTH, depth.getLimit());
+
+        SqlComplexityException tokens = assertThrows(SqlComplexityException.class,
+                () -> parser.parse("SELECT a,b,c,d,e,f,g,h,i,j,k,l,m,n,o,p,q,r,s,t,u,v,w,x,y,z FROM t"));
+        assertEquals(SqlComplexityException.Limit.TOKENS, tokens.getLimit());
+
+        // parentheses and keywords inside literals and comments are not counted
+        assertNotNull(parser.parse("SELECT '((((((((((((' FROM t /* (((((((((((( */"));
+
+        // the length limit applies to the statement as passed in, not to its offloaded form
+        String large = "SELECT * FROM t WHERE a = '" + "x".repeat(SqlParser.DEFAULT_LITERAL_OFFLOAD_THRESHOLD) + "'";
+        SqlComplexityException offloaded = assertThrows(SqlComplexityException.class,
+                () -> parser.parseForAnalysis(large));
+        assertEquals(large.length(), offloaded.getActual());
+    }
+
+    @Test
+    @DisplayName("Time-outs report the applied limit and the elapsed time")
+    public void testTimeOutReport() {
+        SqlParser parser = new SqlParser();
+        parser.setFeatures(p -> p.withTimeOut(1));
+        String sql = "SELECT * FROM users WHERE id = ?" + " OR (id = ? AND name LIKE ?)".repeat(2000);
+        SqlComplexityException timeout = assertThrows(SqlComplexityException.class, () -> parser.parse(sql));
+        assertEquals(SqlComplexityException.Limit.TIME, timeout.getLimit());
+        assertEquals(1, timeout.getThreshold());
+        assertTrue(timeout.getActual() >= 1, timeout.getMessage());
+    }
+
+    @Test
+    @DisplayName("Traversal limits stop huge expressions")
+    public void testTraversalLimits() {
+        StringBuilder sql = new StringBuilder("SELECT * FROM users WHERE id = ?");
+        for (int i = 0; i < 200; i++) {
+            sql.append(" OR id = ?");
+        }
+        ParseLimits limits = new ParseLimits();
+        limits.setMaxNodes(100);
+        SqlParser.getInstance().setLimits(limits);
+
+        SqlComplexityException nodes = assertThrows(SqlComplexityException.class,
+                () -> ParamFinder.find(sql.toString()));
+        assertEquals(SqlComplexityException.Limit.NODES, nodes.getLimit());
+
+        // AND/OR chains are walked iteratively, other binary chains still nest
+        limits.setMaxNodes(0);
+        limits.setMaxDepth(50);
+        SqlParser.getInstance().setLimits(limits);
+        assertEquals(1, TableFinder.findTables(sql.toString()).size());
+        String arithmetic = "SELECT * FROM users WHERE id = 1" + " + 1".repeat(200);
+        SqlComplexityException depth = assertThrows(SqlComplexityException.class,
+                () -> TableFinder.findTables(arithmetic));
+        assertEquals(SqlComplexityException.Limit.DEPTH, depth.getLimit());
+
+        SqlParser.getInstance().setLimits(null);
+        assertEquals(201, ParamFinder.find(sql.toString()).size());
+    }
+
+    @Test
+    @DisplayName("Large string literals are offloaded before parsing")
+    public void testLiteralOffload() {
+        String blob = "'" + "QUJD".repeat(500_000) + "'";
+        String json = "'{\"a\": \"it''s\"}'";
+        String sql = "INSERT INTO files (name, content, meta) VALUES ('a.png', " + blob + ", " + json + ")";
+
+        OffloadedSql offloaded = OffloadedSql.of(sql, 8);
+        assertEquals(List.of(blob, json), offloaded.getLiterals());
+        assertEquals("INSERT INTO files (name, content, meta) VALUES ('a.png', '__sqltool_literal_0__', "
+                + "'__sqltool_literal_1__')", offloaded.getSql());
+        assertEquals(sql, offloaded.restore(offloaded.getSql()));
+
+        // comments, identifiers and short literals stay in place
+        String small = "SELECT \"a''b\" FROM t -- 'comment that is long enough'\nWHERE x = 'short'";
+        assertFalse(OffloadedSql.of(small, 8).isOffloaded());
+
+        // analysis runs on the slim text, rewrites get the literal back
+        assertEquals(1, TableFinder.findTables(sql).size());
+        String update = "UPDATE files SET content = " + blob + " WHERE id = ?";
+        assertEquals(2, ParamFinder.find(update + " AND owner = ?").size());
+        String rewritten = ParserHelper.addWhere(update, "tenant_id = 1");
+        assertTrue(rewritten.contains(blob));
+        assertTrue(rewritten.endsWith("tenant_id = 1"));
+
+        // a broken statement does not copy the blob into the exception message
+        SqlIllegalException error = assertThrows(SqlIllegalException.class,
+                () -> SqlParser.getInstance().parseForAnalysis("SELEKT " + blob + " FROM t"));
+        assertTrue(error.getMessage().length() < 1000);
+    }
+
+    @Test
+    @DisplayName("Large hex and bit literals are not offloaded")
+    public void testBinaryLiteralOffload() {
+        String hex = "X'" + "0A1B".repeat(1500) + "'";
+        String sql = "INSERT INTO t (b) VALUES (" + hex + ")";
+        assertFalse(OffloadedSql.of(sql, 8).isOffloaded());
+        assertFalse(OffloadedSql.of("SELECT b'" + "01".repeat(100) + "' FROM t", 8).isOffloaded());
+        // a literal after an identifier ending in x is still offloaded
+        assertTrue(OffloadedSql.of("SELECT * FROM t WHERE ex='" + "a".repeat(100) + "'", 8).isOffloaded());
+
+        assertNotNull(SqlParser.getInstance().parseForAnalysis(sql));
+        assertEquals(1, TableFinder.findTables(sql).size());
+        assertTrue(ParserHelper.addWhere("UPDATE t SET b = " + hex, "tenant_id = 1").contains(hex));
+    }
+}